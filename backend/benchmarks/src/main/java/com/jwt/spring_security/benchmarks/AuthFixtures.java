@@ -0,0 +1,84 @@
+package com.jwt.spring_security.benchmarks;
+
+import com.jwt.spring_security.config.JwtFilter;
+import com.jwt.spring_security.model.Users;
+import com.jwt.spring_security.repo.UserRepo;
+import com.jwt.spring_security.service.JWTService;
+import com.jwt.spring_security.service.MyUserDetailsService;
+import com.jwt.spring_security.service.UserPrincipalCache;
+import com.jwt.spring_security.service.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wires the real auth beans by hand, without a Spring Boot context or a database.
+ * Users come from an in-memory map behind a {@link UserRepo} proxy, so MyUserDetailsService
+ * and its principal cache run exactly as they do in the application.
+ */
+final class AuthFixtures {
+
+    static final String USERNAME = "bench.owner";
+    static final String ROLE = "ROLE_OWNER";
+
+    private AuthFixtures() {
+    }
+
+    /**
+     * @param verifiedTokenCache false sets the cache TTL to zero, so every call verifies the signature
+     */
+    static JWTService jwtService(boolean verifiedTokenCache) throws Exception {
+        long maxTtlSeconds = verifiedTokenCache ? 600 : 0;
+        JWTService jwtService = new JWTService();
+        ReflectionTestUtils.setField(jwtService, "verifiedTokenCache",
+                new VerifiedTokenCache(10_000, maxTtlSeconds, new SimpleMeterRegistry()));
+        return jwtService;
+    }
+
+    static MyUserDetailsService userDetailsService(boolean principalCache) {
+        Users user = new Users();
+        user.setId(1L);
+        user.setUsername(USERNAME);
+        user.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+        user.setRole(ROLE);
+
+        Map<String, Users> users = new HashMap<>();
+        users.put(USERNAME, user);
+
+        MyUserDetailsService userDetailsService = new MyUserDetailsService();
+        ReflectionTestUtils.setField(userDetailsService, "repo", inMemoryUserRepo(users));
+        ReflectionTestUtils.setField(userDetailsService, "principalCache",
+                new UserPrincipalCache(5000, principalCache ? 300 : 0, new SimpleMeterRegistry()));
+        return userDetailsService;
+    }
+
+    static JwtFilter jwtFilter(JWTService jwtService, MyUserDetailsService userDetailsService) {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(MyUserDetailsService.class, () -> userDetailsService);
+        context.refresh();
+
+        JwtFilter filter = new JwtFilter();
+        ReflectionTestUtils.setField(filter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filter, "context", context);
+        return filter;
+    }
+
+    // Only findByUsername is used on the auth path; anything else is a wiring mistake
+    private static UserRepo inMemoryUserRepo(Map<String, Users> users) {
+        return (UserRepo) Proxy.newProxyInstance(UserRepo.class.getClassLoader(), new Class<?>[]{UserRepo.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByUsername")) {
+                        return users.get((String) args[0]);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(users, args);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
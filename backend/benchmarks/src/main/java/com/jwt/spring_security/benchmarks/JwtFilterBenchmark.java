@@ -0,0 +1,51 @@
+package com.jwt.spring_security.benchmarks;
+
+import com.jwt.spring_security.config.JwtFilter;
+import com.jwt.spring_security.service.JWTService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One authenticated request through JwtFilter: header parsing, claim verification,
+ * principal lookup and SecurityContext population.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    // false on both is the uncached baseline: signature check plus a user lookup per request
+    @Param({"true", "false"})
+    public boolean caches;
+
+    private JwtFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() throws Exception {
+        JWTService jwtService = AuthFixtures.jwtService(caches);
+        filter = AuthFixtures.jwtFilter(jwtService, AuthFixtures.userDetailsService(caches));
+        authorization = "Bearer " + jwtService.generateToken(AuthFixtures.USERNAME, AuthFixtures.ROLE);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/patients");
+        request.addHeader("Authorization", authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,47 @@
+package com.jwt.spring_security.benchmarks;
+
+import com.jwt.spring_security.service.JWTService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    // true measures the steady state (cache hit); false measures full HS256 verification on every call
+    @Param({"true", "false"})
+    public boolean verifiedTokenCache;
+
+    private JWTService jwtService;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtService = AuthFixtures.jwtService(verifiedTokenCache);
+        userDetails = AuthFixtures.userDetailsService(true).loadUserByUsername(AuthFixtures.USERNAME);
+        token = jwtService.generateToken(AuthFixtures.USERNAME, AuthFixtures.ROLE);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(AuthFixtures.USERNAME, AuthFixtures.ROLE);
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtService.validateToken(token, userDetails);
+    }
+}
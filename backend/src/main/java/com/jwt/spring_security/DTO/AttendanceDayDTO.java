@@ -0,0 +1,66 @@
+package com.jwt.spring_security.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One employee's attendance for one day, aggregated in the database from their punches
+public class AttendanceDayDTO {
+    private String employeeId;
+    private LocalDate day;
+    private LocalDateTime firstIn;
+    private LocalDateTime lastOut;
+    private long punches;
+    private double hoursWorked; // lastOut - firstIn; 0 for a single punch
+
+    public AttendanceDayDTO(String employeeId, LocalDate day, LocalDateTime firstIn, LocalDateTime lastOut,
+                            long punches, double hoursWorked) {
+        this.employeeId = employeeId;
+        this.day = day;
+        this.firstIn = firstIn;
+        this.lastOut = lastOut;
+        this.punches = punches;
+        this.hoursWorked = hoursWorked;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public LocalDateTime getFirstIn() {
+        return firstIn;
+    }
+    public void setFirstIn(LocalDateTime firstIn) {
+        this.firstIn = firstIn;
+    }
+
+    public LocalDateTime getLastOut() {
+        return lastOut;
+    }
+    public void setLastOut(LocalDateTime lastOut) {
+        this.lastOut = lastOut;
+    }
+
+    public long getPunches() {
+        return punches;
+    }
+    public void setPunches(long punches) {
+        this.punches = punches;
+    }
+
+    public double getHoursWorked() {
+        return hoursWorked;
+    }
+    public void setHoursWorked(double hoursWorked) {
+        this.hoursWorked = hoursWorked;
+    }
+}
@@ -0,0 +1,58 @@
+package com.jwt.spring_security.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated listing; pass nextCursor back as "after" to get the next page
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class KeysetPageDTO<T> {
+    private List<T> items;
+    private Object nextCursor; // Last id, or an opaque string for composite keys; null on the last page
+    private boolean hasMore;
+    private Long total;      // Only set when the caller asks for it
+
+    public KeysetPageDTO(List<T> items, Object nextCursor, boolean hasMore, Long total) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.total = total;
+    }
+
+    // Builds a page from a query that fetched up to size + 1 rows; the extra row only signals that more exist
+    public static <T> KeysetPageDTO<T> of(List<T> fetched, int size, Function<T, ?> cursorOf, Long total) {
+        boolean hasMore = fetched.size() > size;
+        List<T> items = hasMore ? fetched.subList(0, size) : fetched;
+        Object nextCursor = hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new KeysetPageDTO<>(items, nextCursor, hasMore, total);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public Object getNextCursor() {
+        return nextCursor;
+    }
+    public void setNextCursor(Object nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+}
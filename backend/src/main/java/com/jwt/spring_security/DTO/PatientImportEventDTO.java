@@ -0,0 +1,84 @@
+package com.jwt.spring_security.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One line of the bulk import response: a failed row, a progress update after each batch,
+ * or the final summary.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PatientImportEventDTO {
+
+    private String type; // "error", "progress" or "done"
+    private Long row;
+    private String message;
+    private Long processed;
+    private Long imported;
+    private Long failed;
+
+    public static PatientImportEventDTO error(long row, String message) {
+        PatientImportEventDTO event = new PatientImportEventDTO();
+        event.type = "error";
+        event.row = row;
+        event.message = message;
+        return event;
+    }
+
+    public static PatientImportEventDTO progress(String type, long processed, long imported, long failed) {
+        PatientImportEventDTO event = new PatientImportEventDTO();
+        event.type = type;
+        event.processed = processed;
+        event.imported = imported;
+        event.failed = failed;
+        return event;
+    }
+
+    // Getters and setters
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getRow() {
+        return row;
+    }
+
+    public void setRow(Long row) {
+        this.row = row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Long getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(Long processed) {
+        this.processed = processed;
+    }
+
+    public Long getImported() {
+        return imported;
+    }
+
+    public void setImported(Long imported) {
+        this.imported = imported;
+    }
+
+    public Long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Long failed) {
+        this.failed = failed;
+    }
+}
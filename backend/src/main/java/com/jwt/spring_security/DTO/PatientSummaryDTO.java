@@ -0,0 +1,129 @@
+package com.jwt.spring_security.DTO;
+
+import com.jwt.spring_security.service.ImageStore;
+
+// Flat, list-friendly view of a patient; built straight from a JPQL constructor expression
+// so none of the spouse/pregnancy/consultation/medical history one-to-ones are loaded
+public class PatientSummaryDTO {
+    private Long clientID;
+    private String patientID;
+    private String lastName;
+    private String givenName;
+    private String middleName;
+    private Character sex;
+    private int age;
+    private String contactNumber;
+    private String status;
+    private String imagePath;
+    private Long branchID;
+    private String branchName;
+
+    public PatientSummaryDTO(Long clientID, String patientID, String lastName, String givenName, String middleName,
+                             Character sex, int age, String contactNumber, String status, String imagePath,
+                             Long branchID, String branchName) {
+        this.clientID = clientID;
+        this.patientID = patientID;
+        this.lastName = lastName;
+        this.givenName = givenName;
+        this.middleName = middleName;
+        this.sex = sex;
+        this.age = age;
+        this.contactNumber = contactNumber;
+        this.status = status;
+        this.imagePath = imagePath;
+        this.branchID = branchID;
+        this.branchName = branchName;
+    }
+
+    public Long getClientID() {
+        return clientID;
+    }
+    public void setClientID(Long clientID) {
+        this.clientID = clientID;
+    }
+
+    public String getPatientID() {
+        return patientID;
+    }
+    public void setPatientID(String patientID) {
+        this.patientID = patientID;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getGivenName() {
+        return givenName;
+    }
+    public void setGivenName(String givenName) {
+        this.givenName = givenName;
+    }
+
+    public String getMiddleName() {
+        return middleName;
+    }
+    public void setMiddleName(String middleName) {
+        this.middleName = middleName;
+    }
+
+    public Character getSex() {
+        return sex;
+    }
+    public void setSex(Character sex) {
+        this.sex = sex;
+    }
+
+    public int getAge() {
+        return age;
+    }
+    public void setAge(int age) {
+        this.age = age;
+    }
+
+    public String getContactNumber() {
+        return contactNumber;
+    }
+    public void setContactNumber(String contactNumber) {
+        this.contactNumber = contactNumber;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public Long getBranchID() {
+        return branchID;
+    }
+    public void setBranchID(Long branchID) {
+        this.branchID = branchID;
+    }
+
+    // Small variant for list views; only photos in the image store have one
+    public String getThumbnailPath() {
+        if (imagePath != null && imagePath.startsWith(ImageStore.URL_PREFIX)) {
+            return imagePath + "?variant=thumb";
+        }
+        return imagePath;
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+    public void setBranchName(String branchName) {
+        this.branchName = branchName;
+    }
+}
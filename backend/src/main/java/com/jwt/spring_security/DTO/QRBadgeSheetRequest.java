@@ -0,0 +1,36 @@
+package com.jwt.spring_security.DTO;
+
+import java.util.List;
+
+public class QRBadgeSheetRequest {
+
+    // Either the patients to print, or a branch whose patients are all printed
+    private List<Long> clientIDs;
+    private Long branchId;
+    private String format = "pdf"; // "pdf" or "png"
+
+    // Getters and setters
+    public List<Long> getClientIDs() {
+        return clientIDs;
+    }
+
+    public void setClientIDs(List<Long> clientIDs) {
+        this.clientIDs = clientIDs;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+}
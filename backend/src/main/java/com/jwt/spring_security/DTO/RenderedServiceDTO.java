@@ -1,5 +1,6 @@
 package com.jwt.spring_security.DTO;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class RenderedServiceDTO {
@@ -9,6 +10,19 @@ public class RenderedServiceDTO {
     private List<ItemDTO> items;       // A list of simpler DTOs for items
     private Double totalCost;
     private String notes;
+    private LocalDateTime renderedAt;  // Null for rows recorded before the column existed
+
+    public RenderedServiceDTO() {
+    }
+
+    // Used by the JPQL constructor expression; services and items are filled in afterwards
+    public RenderedServiceDTO(Long id, Long patientId, Double totalCost, String notes, LocalDateTime renderedAt) {
+        this.id = id;
+        this.patientId = patientId;
+        this.totalCost = totalCost;
+        this.notes = notes;
+        this.renderedAt = renderedAt;
+    }
 
     // Getters and Setters
     public Long getId() {
@@ -52,5 +66,12 @@ public class RenderedServiceDTO {
     public void setNotes(String notes) {
         this.notes = notes;
     }
+
+    public LocalDateTime getRenderedAt() {
+        return renderedAt;
+    }
+    public void setRenderedAt(LocalDateTime renderedAt) {
+        this.renderedAt = renderedAt;
+    }
 }
 
@@ -0,0 +1,42 @@
+package com.jwt.spring_security.DTO;
+
+// Outcome of one basket line in a stock reservation
+public class StockLineResult {
+
+    public enum Status {
+        OK,
+        INSUFFICIENT_STOCK,
+        NOT_FOUND
+    }
+
+    private Long itemID;
+    private Long requestedQuantity;
+    private Status status;
+
+    public StockLineResult(Long itemID, Long requestedQuantity, Status status) {
+        this.itemID = itemID;
+        this.requestedQuantity = requestedQuantity;
+        this.status = status;
+    }
+
+    public Long getItemID() {
+        return itemID;
+    }
+    public void setItemID(Long itemID) {
+        this.itemID = itemID;
+    }
+
+    public Long getRequestedQuantity() {
+        return requestedQuantity;
+    }
+    public void setRequestedQuantity(Long requestedQuantity) {
+        this.requestedQuantity = requestedQuantity;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+}
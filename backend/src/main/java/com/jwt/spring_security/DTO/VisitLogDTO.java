@@ -0,0 +1,83 @@
+package com.jwt.spring_security.DTO;
+
+import java.util.Date;
+
+// One row of the visit log, built from a JPQL constructor expression so the patient graph is never loaded
+public class VisitLogDTO {
+    private Long id;
+    private Date visitDate;
+    private String purpose;
+    private Long clientID;
+    private String patientID;
+    private String lastName;
+    private String givenName;
+    private Long branchID;
+
+    public VisitLogDTO(Long id, Date visitDate, String purpose, Long clientID, String patientID,
+                       String lastName, String givenName, Long branchID) {
+        this.id = id;
+        this.visitDate = visitDate;
+        this.purpose = purpose;
+        this.clientID = clientID;
+        this.patientID = patientID;
+        this.lastName = lastName;
+        this.givenName = givenName;
+        this.branchID = branchID;
+    }
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getVisitDate() {
+        return visitDate;
+    }
+    public void setVisitDate(Date visitDate) {
+        this.visitDate = visitDate;
+    }
+
+    public String getPurpose() {
+        return purpose;
+    }
+    public void setPurpose(String purpose) {
+        this.purpose = purpose;
+    }
+
+    public Long getClientID() {
+        return clientID;
+    }
+    public void setClientID(Long clientID) {
+        this.clientID = clientID;
+    }
+
+    public String getPatientID() {
+        return patientID;
+    }
+    public void setPatientID(String patientID) {
+        this.patientID = patientID;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getGivenName() {
+        return givenName;
+    }
+    public void setGivenName(String givenName) {
+        this.givenName = givenName;
+    }
+
+    public Long getBranchID() {
+        return branchID;
+    }
+    public void setBranchID(Long branchID) {
+        this.branchID = branchID;
+    }
+}
@@ -0,0 +1,38 @@
+package com.jwt.spring_security.DTO;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Server-side aggregates over the same filters as the visit log
+public class VisitSummaryDTO {
+    private long total;
+    private Map<LocalDate, Long> perDay;     // Ordered by day
+    private Map<String, Long> perPurpose;    // Most frequent first
+
+    public VisitSummaryDTO(long total, Map<LocalDate, Long> perDay, Map<String, Long> perPurpose) {
+        this.total = total;
+        this.perDay = perDay;
+        this.perPurpose = perPurpose;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<LocalDate, Long> getPerDay() {
+        return perDay;
+    }
+    public void setPerDay(Map<LocalDate, Long> perDay) {
+        this.perDay = perDay;
+    }
+
+    public Map<String, Long> getPerPurpose() {
+        return perPurpose;
+    }
+    public void setPerPurpose(Map<String, Long> perPurpose) {
+        this.perPurpose = perPurpose;
+    }
+}
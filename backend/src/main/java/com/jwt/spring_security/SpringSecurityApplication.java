@@ -2,9 +2,11 @@ package com.jwt.spring_security;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @SpringBootApplication
+@EnableScheduling
 public class SpringSecurityApplication {
 
 	public static void main(String[] args) {
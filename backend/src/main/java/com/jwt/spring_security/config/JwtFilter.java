@@ -2,6 +2,7 @@ package com.jwt.spring_security.config;
 
 import com.jwt.spring_security.service.JWTService;
 import com.jwt.spring_security.service.MyUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -33,23 +34,23 @@ public class JwtFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String token = null;
+        Claims claims = null;
         String username = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            System.out.println("The token in JwtFilter " + token);
-            username = jwtService.extractUserName(token);
+            String token = authHeader.substring(7);
+            // Parsed and verified once; username, role and expiry all come from the same claims
+            claims = jwtService.extractAllClaims(token);
+            username = claims.getSubject();
         }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = context.getBean(MyUserDetailsService.class).loadUserByUsername(username);
 
             // Extract role from JWT
-            String role = jwtService.extractRole(token);
-            System.out.println("Extracted Role: " + role); // Debugging log
+            String role = (String) claims.get("role");
 
-            if (jwtService.validateToken(token, userDetails)) {
+            if (jwtService.validateClaims(claims, userDetails)) {
                 // Create GrantedAuthority for the role
                 List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(role));
 
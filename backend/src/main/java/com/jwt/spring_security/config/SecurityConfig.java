@@ -1,6 +1,7 @@
 package com.jwt.spring_security.config;
 
 
+import com.jwt.spring_security.service.MyUserDetailsService;
 import com.jwt.spring_security.util.Constants;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -33,13 +34,16 @@ public class  SecurityConfig {
     @Autowired
     private JwtFilter jwtFilter;
 
+    @Autowired
+    private MyUserDetailsService myUserDetailsService;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/login", "/register").permitAll()
-                        .requestMatchers("/images/**","/clock-in","/branches","/unarchivePatient/","/archivePatient/{id}","/users","/service/**","/getPatientLogs", "/purchaseItems", "/searchPatients", "/deletePatient/{id}", "/generateqr", "/scanqr", "/addPatientLog", "/generatepdf/{patientId}", "/api/upload-profile-picture", "/addPatient", "/getPatient","/getPatient/{id}", "/home", "/getPatient", "/employees/me", "/items").hasAnyAuthority("ROLE_EMPLOYEE", "ROLE_OWNER") // Using hasAuthority instead of hasRole
-                        .requestMatchers("/update/","/delete/{id}","/addBranch", "/branches", "/deleteBranch/", "/readBranch/", "/items", "/items/", "/addItems", "/deleteItems/{id}", "/addItem", "/addItems", "/updateItems/{id}", "/items","/inventory", "/employees", "/reports", "/branches", "/readBranch/", "/deleteBranch/", "/addBranch", "/addItems").hasAuthority("ROLE_OWNER") // Using hasAuthority instead of hasRole
+                        .requestMatchers("/images/**","/clock-in","/clock-in/records","/clock-in/attendance","/branches","/unarchivePatient/","/archivePatient/{id}","/users","/service/**","/getPatientLogs", "/purchaseItems", "/searchPatients", "/deletePatient/{id}", "/generateqr", "/generateqr/batch", "/scanqr", "/addPatientLog", "/generatepdf/{patientId}", "/api/upload-profile-picture", "/api/profile-picture", "/patients/{patientId}/image", "/addPatient", "/getPatient","/getPatient/{id}", "/patients", "/home", "/getPatient", "/employees/me", "/items").hasAnyAuthority("ROLE_EMPLOYEE", "ROLE_OWNER") // Using hasAuthority instead of hasRole
+                        .requestMatchers("/update/","/delete/{id}","/addBranch", "/branches", "/deleteBranch/", "/readBranch/", "/items", "/items/", "/addItems", "/deleteItems/{id}", "/addItem", "/addItems", "/updateItems/{id}", "/items","/inventory", "/employees", "/reports", "/api/reports/rebuild", "/patients/import", "/export/**", "/owner/generateReport", "/owner/visits", "/owner/visits/summary", "/branches", "/readBranch/", "/deleteBranch/", "/addBranch", "/addItems").hasAuthority("ROLE_OWNER") // Using hasAuthority instead of hasRole
                         .anyRequest().authenticated()
 
                 )
@@ -58,7 +62,9 @@ public class  SecurityConfig {
 
         // Password encoded with BCrypt
         provider.setPasswordEncoder(new BCryptPasswordEncoder(Constants.BCRYPT_STRENGTH));
-        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsService(myUserDetailsService);
+        // Re-hashes weaker stored passwords on the next successful login
+        provider.setUserDetailsPasswordService(myUserDetailsService);
         return provider;
     }
 
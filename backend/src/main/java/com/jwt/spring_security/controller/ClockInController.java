@@ -1,12 +1,19 @@
 package com.jwt.spring_security.controller;
 
+import com.jwt.spring_security.DTO.AttendanceDayDTO;
 import com.jwt.spring_security.DTO.ClockInRequest;
 import com.jwt.spring_security.DTO.ClockInResponse;
+import com.jwt.spring_security.DTO.KeysetPageDTO;
 import com.jwt.spring_security.service.ClockInService;
+import com.jwt.spring_security.service.ClockInWriteBehind;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/clock-in")
@@ -18,18 +25,51 @@ public class ClockInController {
         this.clockInService = clockInService;
     }
 
+    // The punch is journaled but not yet in the database, so it is identified by punchId rather than a row id
     @PostMapping
     public ResponseEntity<?> clockIn(@RequestBody ClockInRequest request) {
-        clockInService.saveClockIn(request);
-        return ResponseEntity.ok("Clock-in successful");
+        ClockInWriteBehind.Punch punch = clockInService.saveClockIn(request);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Clock-in successful");
+        response.put("punchId", punch.punchId);
+        response.put("employeeId", punch.employeeId);
+        response.put("branchId", punch.branchId);
+        response.put("timestamp", punch.timestamp);
+        return ResponseEntity.ok(response);
     }
 
+    // Plain list for the clock-in page; defaults to the recent window when no start date is given.
+    // As on every date-range endpoint, "from" is inclusive and "to" exclusive.
     @GetMapping
-    public ResponseEntity<List<ClockInResponse>> getAllClockIns() {
-        List<ClockInResponse> clockIns = clockInService.getAllClockIns();
+    public ResponseEntity<List<ClockInResponse>> getAllClockIns(@RequestParam(required = false) String employeeId,
+                                                                @RequestParam(required = false) Long branchId,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        List<ClockInResponse> clockIns = clockInService.getClockIns(employeeId, branchId, from, to);
         return ResponseEntity.ok(clockIns);
     }
 
+    // Keyset-paginated punches, newest first; pass nextCursor from the previous page as "before"
+    @GetMapping("/records")
+    public ResponseEntity<KeysetPageDTO<ClockInResponse>> listClockIns(@RequestParam(required = false) String before,
+                                                                       @RequestParam(defaultValue = "50") int size,
+                                                                       @RequestParam(required = false) String employeeId,
+                                                                       @RequestParam(required = false) Long branchId,
+                                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(clockInService.listClockIns(before, size, employeeId, branchId, from, to));
+    }
+
+    // Daily first-in / last-out and hours worked per employee, for payroll
+    @GetMapping("/attendance")
+    public ResponseEntity<List<AttendanceDayDTO>> getAttendance(@RequestParam(required = false) String employeeId,
+                                                                @RequestParam(required = false) Long branchId,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(clockInService.getAttendance(employeeId, branchId, from, to));
+    }
+
 
 }
 
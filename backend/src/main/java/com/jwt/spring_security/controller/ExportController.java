@@ -0,0 +1,58 @@
+package com.jwt.spring_security.controller;
+
+import com.jwt.spring_security.service.DataExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    @Autowired
+    private DataExportService dataExportService;
+
+    // Streams patients, visits, rendered-services or clock-ins as CSV or NDJSON, optionally gzipped.
+    // from/to are dates (to exclusive); patients are only filtered by branch.
+    @GetMapping("/{dataset}")
+    public void export(@PathVariable String dataset,
+                       @RequestParam(defaultValue = "csv") String format,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                       @RequestParam(required = false) Long branchId,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        DataExportService.Dataset exported = DataExportService.Dataset.fromPath(dataset);
+        DataExportService.Format exportFormat = DataExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+
+        if (!dataExportService.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "30");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many exports in progress, please retry later");
+            return;
+        }
+
+        try {
+            response.setContentType(gzip ? "application/gzip"
+                    : exportFormat == DataExportService.Format.CSV ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"" + DataExportService.fileName(exported, exportFormat, gzip) + "\"");
+
+            OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024) : response.getOutputStream();
+            dataExportService.export(exported, exportFormat, from, to, branchId, out);
+            if (gzip) {
+                ((GZIPOutputStream) out).finish();
+            }
+        } finally {
+            dataExportService.release();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jwt.spring_security.controller;
+
+import com.jwt.spring_security.service.ImageStore;
+import com.jwt.spring_security.service.MediaResponseWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves patient and employee images, with conditional GET and byte ranges (see {@link MediaResponseWriter}).
+ */
+@RestController
+public class ImageController {
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private MediaResponseWriter mediaResponseWriter;
+
+    // Files saved by path before the content-addressed store existed
+    @Value("${media.legacy.dir:images}")
+    private String legacyDir;
+
+    @Value("${media.cache.store-max-age-days:365}")
+    private long storeMaxAgeDays;
+
+    // Legacy files can be overwritten in place, so they are kept briefly and then revalidated by ETag
+    @Value("${media.cache.legacy-max-age-seconds:3600}")
+    private long legacyMaxAgeSeconds;
+
+    // Content-addressed, so a URL never changes meaning: strong ETag and a long immutable cache.
+    // While a variant is still being generated the original is served with no-cache instead.
+    @GetMapping(ImageStore.URL_PREFIX + "{hash}")
+    public void getImage(@PathVariable String hash,
+                         @RequestParam(defaultValue = "original") String variant,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageStore.Variant requested = ImageStore.Variant.valueOf(variant.toUpperCase(Locale.ROOT));
+
+        Path file = imageStore.resolve(hash, requested);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        boolean exact = requested == ImageStore.Variant.ORIGINAL || file.getFileName().toString().contains("_");
+        String servedVariant = exact ? requested.name().toLowerCase(Locale.ROOT) : "original";
+
+        mediaResponseWriter.write(request, response, file, "\"" + hash + "-" + servedVariant + "\"",
+                exact ? CacheControl.maxAge(storeMaxAgeDays, TimeUnit.DAYS).cachePrivate().immutable() : CacheControl.noCache());
+    }
+
+    @GetMapping("/images/{*path}")
+    public void getLegacyImage(@PathVariable String path,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path root = Paths.get(legacyDir).toAbsolutePath().normalize();
+        Path file = root.resolve(path.substring(1)).normalize();
+
+        // No escaping the directory, and the store's internal layout is only reachable through getImage
+        if (!file.startsWith(root) || file.startsWith(imageStore.getRoot()) || !Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        mediaResponseWriter.write(request, response, file, etag,
+                CacheControl.maxAge(legacyMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate());
+    }
+}
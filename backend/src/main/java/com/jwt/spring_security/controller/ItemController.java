@@ -1,16 +1,20 @@
 package com.jwt.spring_security.controller;
 
+import com.jwt.spring_security.DTO.StockLineResult;
 import com.jwt.spring_security.model.Branch;
 import com.jwt.spring_security.model.Item;
 import com.jwt.spring_security.repo.ItemRepo;
 import com.jwt.spring_security.service.ItemService;
 import com.jwt.spring_security.service.BranchService;
+import com.jwt.spring_security.service.StockService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 public class ItemController {
@@ -21,6 +25,9 @@ public class ItemController {
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private StockService stockService;
+
     @Autowired
     private BranchService branchService;
     @Autowired
@@ -114,33 +121,22 @@ public class ItemController {
 
     @PostMapping("/purchaseItems")
     public ResponseEntity<?> purchaseItems(@RequestBody List<Item> purchasedItems) {
-        try {
-            for (Item purchasedItem : purchasedItems) {
-                // Fetch the existing item by ID
-                Item existingItem = itemRepo.findByItemID(purchasedItem.getItemID());
-                if (existingItem == null) {
-                    return ResponseEntity.badRequest().body("Item not found: " + purchasedItem.getItemID());
-                }
-
-                // Ensure itemQuantity is not null
-                Long existingQuantity = existingItem.getItemQuantity() != null ? existingItem.getItemQuantity() : 0;
-
-                // Check if enough stock is available
-                if (existingQuantity < purchasedItem.getItemQuantity()) {
-                    return ResponseEntity.badRequest().body("Insufficient stock for item: " + existingItem.getItemName());
-                }
-
-                // Deduct the purchased quantity from stock
-                existingItem.setItemQuantity(existingQuantity - purchasedItem.getItemQuantity());
-
-                // Save the updated item
-                itemRepo.save(existingItem);
+        // Sum repeated lines so each item is checked against stock once
+        Map<Long, Long> requestedById = new LinkedHashMap<>();
+        for (Item purchasedItem : purchasedItems) {
+            if (purchasedItem.getItemID() == null) {
+                return ResponseEntity.badRequest().body("Item ID cannot be null.");
             }
-
-            return ResponseEntity.ok("Purchase recorded successfully, and stocks updated.");
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("An error occurred: " + e.getMessage());
+            if (purchasedItem.getItemQuantity() == null || purchasedItem.getItemQuantity() <= 0) {
+                return ResponseEntity.badRequest().body("Item quantities must be positive.");
+            }
+            requestedById.merge(purchasedItem.getItemID(), purchasedItem.getItemQuantity(), Long::sum);
         }
+
+        // All-or-nothing, together with the medicine-sold rollup; a short line surfaces as 409 with every line's result
+        List<StockLineResult> results = stockService.sell(requestedById);
+
+        return ResponseEntity.ok(results);
     }
 
 
@@ -1,14 +1,18 @@
 package com.jwt.spring_security.controller;
 
+import com.jwt.spring_security.DTO.KeysetPageDTO;
+import com.jwt.spring_security.DTO.VisitLogDTO;
+import com.jwt.spring_security.DTO.VisitSummaryDTO;
 import com.jwt.spring_security.model.Item;
 import com.jwt.spring_security.model.Users;
-import com.jwt.spring_security.model.Visit;
 import com.jwt.spring_security.repo.ItemRepo;
-import com.jwt.spring_security.repo.VisitRepository;
+import com.jwt.spring_security.service.VisitLogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -18,19 +22,42 @@ import java.util.Optional;
 public class OwnerController {
 
     @Autowired
-    private VisitRepository visitRepository;
+    private ItemRepo itemRepo;
 
     @Autowired
-    private ItemRepo itemRepo;
+    private VisitLogService visitLogService;
 
-    // Generate clinic report
+    // Generate clinic report: the first page of the visit log (newest first) instead of every visit ever recorded
     @GetMapping("/generateReport")
-    public ResponseEntity<List<Visit>> viewClinicReport() {
-        List<Visit> visits = visitRepository.findAll();
-        if (visits.isEmpty()) {
+    public ResponseEntity<KeysetPageDTO<VisitLogDTO>> viewClinicReport() {
+        KeysetPageDTO<VisitLogDTO> page = visitLogService.listVisits(null, 50, null, null, null, null, null, false);
+        if (page.getItems().isEmpty()) {
             return ResponseEntity.noContent().build(); // 204 No Content
         }
-        return ResponseEntity.ok(visits); // 200 OK
+        return ResponseEntity.ok(page); // 200 OK
+    }
+
+    // Filtered visit log, newest first; pass nextCursor from the previous page as "before"
+    @GetMapping("/visits")
+    public ResponseEntity<KeysetPageDTO<VisitLogDTO>> listVisits(@RequestParam(required = false) String before,
+                                                                 @RequestParam(defaultValue = "50") int size,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                 @RequestParam(required = false) Long branchId,
+                                                                 @RequestParam(required = false) String purpose,
+                                                                 @RequestParam(required = false) Long patientId,
+                                                                 @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(visitLogService.listVisits(before, size, from, to, branchId, purpose, patientId, includeTotal));
+    }
+
+    // Visit counts per day and per purpose over the same filters
+    @GetMapping("/visits/summary")
+    public ResponseEntity<VisitSummaryDTO> summarizeVisits(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                           @RequestParam(required = false) Long branchId,
+                                                           @RequestParam(required = false) String purpose,
+                                                           @RequestParam(required = false) Long patientId) {
+        return ResponseEntity.ok(visitLogService.summarize(from, to, branchId, purpose, patientId));
     }
 
     // Add an item
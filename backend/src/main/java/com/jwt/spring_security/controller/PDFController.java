@@ -0,0 +1,36 @@
+package com.jwt.spring_security.controller;
+
+import com.jwt.spring_security.model.Patient;
+import com.jwt.spring_security.service.PatientRecordPdfService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+public class PDFController {
+
+    @Autowired
+    private PatientRecordPdfService patientRecordPdfService;
+
+    // Full patient record; the PDF is written to the response page by page as it is built
+    @GetMapping("/generatepdf/{patientId}")
+    public ResponseEntity<StreamingResponseBody> generatePatientPdf(@PathVariable Long patientId) {
+        Patient patient = patientRecordPdfService.loadRecord(patientId);
+        if (patient == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        StreamingResponseBody body = out -> patientRecordPdfService.writePdf(out, patient);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"patient-" + patient.getClientID() + ".pdf\"")
+                .body(body);
+    }
+}
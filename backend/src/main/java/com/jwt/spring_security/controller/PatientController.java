@@ -1,13 +1,21 @@
 package com.jwt.spring_security.controller;
 
 import com.jwt.spring_security.DTO.ConsultationDTO;
+import com.jwt.spring_security.DTO.KeysetPageDTO;
 import com.jwt.spring_security.DTO.PatientDTO;
+import com.jwt.spring_security.DTO.PatientSummaryDTO;
+import com.jwt.spring_security.exception.custom.UploadRejectedException;
 import com.jwt.spring_security.model.Patient;
 import com.jwt.spring_security.model.RenderedService;
 import com.jwt.spring_security.repo.PatientRepo;
 import com.jwt.spring_security.repo.RenderedServiceRepository;
+import com.jwt.spring_security.service.ImageStore;
+import com.jwt.spring_security.service.PatientImportService;
+import com.jwt.spring_security.service.PatientSearchIndex;
 import com.jwt.spring_security.service.PatientService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
@@ -19,8 +27,10 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.file.*;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,6 +54,15 @@ public class PatientController {
     @Autowired
     private RenderedServiceRepository renderedServiceRepository;
 
+    @Autowired
+    private PatientSearchIndex searchIndex;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private PatientImportService patientImportService;
+
     @PostMapping("/uploadPatientImage")
     public ResponseEntity<?> uploadPatientImage(@RequestParam("file") MultipartFile file,
                                                 @RequestParam("patientId") Long patientId) {
@@ -55,31 +74,53 @@ public class PatientController {
             if (file.isEmpty()) {
                 return ResponseEntity.badRequest().body("No file was uploaded.");
             }
+            if (file.getSize() > imageStore.getMaxUploadBytes()) {
+                throw UploadRejectedException.tooLarge(imageStore.getMaxUploadBytes());
+            }
 
-            // Use a standard static folder within the backend resources
-            String uploadDir = new File("images").getAbsolutePath();
-            File directory = new File(uploadDir);
-            if (!directory.exists()) {
-                directory.mkdirs();  // Create directory if it doesn't exist
+            // Moves the part the container already spooled to disk instead of copying it through the heap
+            Path upload = imageStore.newUploadFile();
+            String hash;
+            try {
+                file.transferTo(upload.toFile());
+                hash = imageStore.storeUploadedFile(upload);
+            } finally {
+                // storeUploadedFile removes it too, but not if transferTo failed first
+                Files.deleteIfExists(upload);
             }
 
-            // Generate a unique filename
-            String uniqueFilename = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            Path filePath = Paths.get(uploadDir, uniqueFilename);
+            return ResponseEntity.ok(attachImage(patient, hash));
 
-            // Save the file locally
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (UploadRejectedException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to upload image: " + e.getMessage());
+        }
+    }
 
-            // Save relative path in the patient record
-            patient.setImagePath("/images/" + uniqueFilename);
-            patientRepo.save(patient);
+    /**
+     * Raw upload: the request body is the image itself. It is streamed straight into the image store,
+     * so size and type are checked while reading and nothing larger than one buffer is held in memory.
+     */
+    @PutMapping("/patients/{patientId}/image")
+    public ResponseEntity<?> putPatientImage(@PathVariable Long patientId, HttpServletRequest request) {
+        try {
+            // Checked before the body is read, so uploads for unknown patients are not received at all
+            Patient patient = patientRepo.findById(patientId).orElse(null);
+            if (patient == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Patient not found with ID: " + patientId);
+            }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Image uploaded successfully");
-            response.put("imagePath", "/images/" + uniqueFilename);
+            String hash = imageStore.store(Channels.newChannel(request.getInputStream()), request.getContentLengthLong());
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(attachImage(patient, hash));
 
+        } catch (UploadRejectedException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -87,6 +128,20 @@ public class PatientController {
         }
     }
 
+    private Map<String, Object> attachImage(Patient patient, String hash) {
+        String imagePath = ImageStore.urlFor(hash);
+
+        // Save relative path in the patient record
+        patient.setImagePath(imagePath);
+        patientRepo.save(patient);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Image uploaded successfully");
+        response.put("imagePath", imagePath);
+        response.put("thumbnailPath", imagePath + "?variant=thumb");
+        return response;
+    }
+
     private String uploadImageToImgur(MultipartFile file) {
         try {
             RestTemplate restTemplate = new RestTemplate();
@@ -133,6 +188,17 @@ public class PatientController {
         return ResponseEntity.ok(patientRepo.findById(clientID).get());
     }
 
+    // Bulk import: CSV with a header of PatientDTO property paths (lastName, branch.branchID, spouse.spouseName, ...)
+    // or NDJSON with one /addPatient body per line. Progress and per-row errors are streamed back as NDJSON.
+    @PostMapping(value = "/patients/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public void importPatients(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PatientImportService.Format format = request.getContentType().startsWith("text/csv")
+                ? PatientImportService.Format.CSV : PatientImportService.Format.NDJSON;
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        patientImportService.importPatients(request.getInputStream(), format, response.getOutputStream());
+    }
+
     @GetMapping("/getPatient")
     public ResponseEntity<?> getAllPatients() {
         List<Patient> patients = patientRepo.findAll();
@@ -142,6 +208,16 @@ public class PatientController {
         return ResponseEntity.ok(patients);
     }
 
+    // Keyset-paginated patient list; pass nextCursor from the previous page as "after"
+    @GetMapping("/patients")
+    public ResponseEntity<KeysetPageDTO<PatientSummaryDTO>> listPatients(@RequestParam(required = false) Long after,
+                                                                        @RequestParam(defaultValue = "50") int size,
+                                                                        @RequestParam(required = false) Long branchId,
+                                                                        @RequestParam(required = false) String status,
+                                                                        @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ResponseEntity.ok(patientService.listPatients(after, size, branchId, status, includeTotal));
+    }
+
     @PatchMapping("/archivePatient/{id}")
     public ResponseEntity<?> archivePatient(@PathVariable Long id) {
         Optional<Patient> patientOptional = patientRepo.findById(id);
@@ -152,6 +228,7 @@ public class PatientController {
         Patient patient = patientOptional.get();
         patient.setStatus("archived");
         patientRepo.save(patient);
+        searchIndex.index(patient);
 
         return ResponseEntity.ok("Patient with ID " + id + " archived successfully.");
     }
@@ -166,15 +243,32 @@ public class PatientController {
         Patient patient = patientOptional.get();
         patient.setStatus("active");
         patientRepo.save(patient);
+        searchIndex.index(patient);
 
         return ResponseEntity.ok("Patient with ID " + id + " unarchived successfully.");
     }
 
+    // Prefix, multi-token and typo-tolerant search over names, patientID and contact number
     @GetMapping("/searchPatients")
-    public ResponseEntity<?> searchPatients(@RequestParam String query) {
-        List<Patient> patients = patientRepo.findByGivenNameAndStatus(query, "active");
-        if (patients.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No active patients found with the given name: " + query);
+    public ResponseEntity<?> searchPatients(@RequestParam String query,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        List<Long> rankedIds = searchIndex.search(query, "active", Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+        if (rankedIds.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No active patients found matching: " + query);
+        }
+
+        // findAllById does not keep the order, so put the page back in rank order
+        Map<Long, Patient> byId = new HashMap<>();
+        for (Patient patient : patientRepo.findAllById(rankedIds)) {
+            byId.put(patient.getClientID(), patient);
+        }
+        List<Patient> patients = new ArrayList<>();
+        for (Long id : rankedIds) {
+            Patient patient = byId.get(id);
+            if (patient != null) {
+                patients.add(patient);
+            }
         }
         return ResponseEntity.ok(patients);
     }
@@ -198,6 +292,7 @@ public class PatientController {
 
         // Update patient details
         Patient updatedPatient = patientRepo.save(patient);
+        searchIndex.index(updatedPatient);
         return ResponseEntity.ok(updatedPatient);
     }
 
@@ -210,6 +305,7 @@ public class PatientController {
 
         // Delete patient
         patientRepo.deleteById(id);
+        searchIndex.remove(id);
         return ResponseEntity.ok("Patient with ID " + id + " deleted successfully.");
     }
 }
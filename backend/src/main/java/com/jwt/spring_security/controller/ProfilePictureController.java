@@ -1,36 +1,56 @@
 package com.jwt.spring_security.controller;
 
+import com.jwt.spring_security.exception.custom.UploadRejectedException;
+import com.jwt.spring_security.service.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @RestController
 @RequestMapping("/api")
 public class ProfilePictureController {
 
+    @Autowired
+    private ImageStore imageStore;
+
     @PostMapping("/upload-profile-picture")
     public String uploadProfilePicture(@RequestParam("profilePicture") MultipartFile file) {
-        String uploadDir = "/";
-        File uploadFolder = new File(uploadDir);
-
-        if (!uploadFolder.exists()) {
-            // Create the directory if it does not exist
-            boolean created = uploadFolder.mkdirs();
-            if (!created) {
-                return "Failed to create directory for file upload";
-            }
+        if (file.getSize() > imageStore.getMaxUploadBytes()) {
+            throw UploadRejectedException.tooLarge(imageStore.getMaxUploadBytes());
         }
 
         try {
-            String filePath = uploadDir + file.getOriginalFilename();
-            file.transferTo(new File(filePath));
+            // The container spooled the part to disk; transferTo moves it into the store's temp dir
+            Path upload = imageStore.newUploadFile();
+            String filePath;
+            try {
+                file.transferTo(upload.toFile());
+                filePath = ImageStore.urlFor(imageStore.storeUploadedFile(upload));
+            } finally {
+                // storeUploadedFile removes it too, but not if transferTo failed first
+                Files.deleteIfExists(upload);
+            }
             // Save file path to database as needed
             return "File uploaded successfully: " + filePath;
         } catch (IOException e) {
             return "File upload failed: " + e.getMessage();
         }
     }
-}
 
+    // Raw body upload, streamed into the store without buffering
+    @PutMapping("/profile-picture")
+    public String putProfilePicture(HttpServletRequest request) {
+        try {
+            String hash = imageStore.store(Channels.newChannel(request.getInputStream()), request.getContentLengthLong());
+            return "File uploaded successfully: " + ImageStore.urlFor(hash);
+        } catch (IOException e) {
+            return "File upload failed: " + e.getMessage();
+        }
+    }
+}
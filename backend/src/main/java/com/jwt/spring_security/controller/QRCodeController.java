@@ -1,77 +1,122 @@
 package com.jwt.spring_security.controller;
 
+import com.jwt.spring_security.DTO.PatientSummaryDTO;
+import com.jwt.spring_security.DTO.QRBadgeSheetRequest;
 import com.jwt.spring_security.model.Consultation;
 import com.jwt.spring_security.repo.ConsultationRepo;
+import com.jwt.spring_security.service.QRBadgeSheetService;
 import com.jwt.spring_security.service.QRCodeService;
 import com.jwt.spring_security.model.Patient;
 import com.jwt.spring_security.service.PatientService;
 
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import javax.imageio.ImageIO;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 public class QRCodeController {
 
+    private static final int MIN_QR_SIZE = 100;
+    private static final int MAX_QR_SIZE = 1000;
+
     @Autowired
     private QRCodeService qrCodeService;
 
     @Autowired
     private PatientService patientService;
 
+    @Autowired
+    private QRBadgeSheetService qrBadgeSheetService;
+
     @Autowired
     private ConsultationRepo consultationRepo;
 
-    @GetMapping("/generateqr")
-    public ResponseEntity<byte[]> generateQRCode(@RequestParam Long clientID) throws Exception {
-        Patient patient = patientService.findById(clientID);
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
 
-        if (patient == null) {
+    @GetMapping("/generateqr")
+    public ResponseEntity<byte[]> generateQRCode(@RequestParam Long clientID,
+                                                 @RequestParam(defaultValue = "300") int size,
+                                                 @RequestParam(defaultValue = "L") ErrorCorrectionLevel ecLevel) {
+        if (size < MIN_QR_SIZE || size > MAX_QR_SIZE) {
+            throw new IllegalArgumentException("size must be between " + MIN_QR_SIZE + " and " + MAX_QR_SIZE);
+        }
+        if (!patientService.existsById(clientID)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
 
-        String qrCodeContent = String.valueOf(patient.getClientID());
+        // The payload is the patient's clientID, which never changes, so the bytes can be cached by the client too
+        QRCodeService.RenderedPng png = qrCodeService.renderPng(String.valueOf(clientID), size, ecLevel);
 
-        BufferedImage qrCodeImage = qrCodeService.generateQRCode(qrCodeContent);
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(png.getEtag())
+                .cacheControl(CacheControl.maxAge(30, TimeUnit.DAYS).cachePrivate())
+                .body(png.getBytes());
+    }
 
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ImageIO.write(qrCodeImage, "PNG", byteArrayOutputStream);
-        byte[] imageBytes = byteArrayOutputStream.toByteArray();
+    // One printable sheet for many patients; pages are rendered and streamed one at a time
+    @PostMapping("/generateqr/batch")
+    public ResponseEntity<StreamingResponseBody> generateBadgeSheet(@RequestBody QRBadgeSheetRequest request) {
+        List<PatientSummaryDTO> patients = qrBadgeSheetService.resolvePatients(request.getClientIDs(), request.getBranchId());
+        if (patients.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Content-Type", "image/png");
+        boolean png = "png".equalsIgnoreCase(request.getFormat());
+        if (png) {
+            qrBadgeSheetService.checkPngSheet(patients);
+        }
+        StreamingResponseBody body = out -> {
+            if (png) {
+                qrBadgeSheetService.writePng(out, patients);
+            } else {
+                qrBadgeSheetService.writePdf(out, patients);
+            }
+        };
 
-        return new ResponseEntity<>(imageBytes, headers, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .contentType(png ? MediaType.IMAGE_PNG : MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"qr-badges." + (png ? "png" : "pdf") + "\"")
+                .body(body);
     }
 
+    // Async: the image is decoded on the QR decode pool, then the patient is looked up on the application
+    // task executor so database I/O never holds a decode thread. A full queue (429) or a timeout (503)
+    // surfaces as QRDecodeRejectedException; anything else goes to the global handler.
     @PostMapping("/scanqr")
-    public ResponseEntity<String> scanQRCode(@RequestParam("file") MultipartFile file) {
-        try {
-            // Convert MultipartFile to File
-            File tempFile = File.createTempFile("qr_", ".png");
-            file.transferTo(tempFile);
-
-            // Decode QR Code
-            String decodedContent = qrCodeService.decodeQRCode(tempFile);
-
+    public CompletableFuture<ResponseEntity<?>> scanQRCode(@RequestParam("file") MultipartFile file) {
+        return qrCodeService.decodeQRCodeAsync(file::getInputStream).<ResponseEntity<?>>thenApplyAsync(decodedContent -> {
             if (decodedContent == null) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("No QR Code found in the image.");
             }
 
-            // Return Decoded Content
-            return ResponseEntity.ok("Decoded QR Code Content: " + decodedContent);
+            Long clientID;
+            try {
+                clientID = Long.valueOf(decodedContent.trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("QR Code is not a patient code: " + decodedContent);
+            }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error decoding QR Code: " + e.getMessage());
-        }
+            Patient patient = patientService.findById(clientID);
+            if (patient == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No patient found for QR Code: " + decodedContent);
+            }
+            return ResponseEntity.ok(patient);
+        }, applicationTaskExecutor);
     }
 }
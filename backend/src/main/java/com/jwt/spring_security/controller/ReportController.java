@@ -1,7 +1,9 @@
 package com.jwt.spring_security.controller;
 
+import com.jwt.spring_security.service.ReportRollupService;
 import com.jwt.spring_security.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -14,9 +16,19 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportRollupService reportRollupService;
+
     // API endpoint for monthly check-ins
     @GetMapping("/monthly-checkins")
-    public List<Map<String, Object>> getMonthlyCheckIns() {
-        return reportService.getMonthlyCheckIns();
+    public List<Map<String, Object>> getMonthlyCheckIns(@RequestParam(required = false) Long branchId) {
+        return reportService.getMonthlyCheckIns(branchId);
+    }
+
+    // Recomputes the daily rollups from the source tables (backfill / repair)
+    @PostMapping("/rebuild")
+    public ResponseEntity<String> rebuildRollups() {
+        reportRollupService.rebuild();
+        return ResponseEntity.ok("Report rollups rebuilt");
     }
 }
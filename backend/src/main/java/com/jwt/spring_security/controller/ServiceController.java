@@ -3,19 +3,37 @@ package com.jwt.spring_security.controller;
 import com.jwt.spring_security.DTO.ItemDTO;
 import com.jwt.spring_security.DTO.RenderedServiceDTO;
 import com.jwt.spring_security.DTO.ServiceDTO;
+import com.jwt.spring_security.exception.custom.InsufficientStockException;
 import com.jwt.spring_security.model.*;
 import com.jwt.spring_security.repo.ItemRepo;
 import com.jwt.spring_security.repo.PatientRepo;
 import com.jwt.spring_security.repo.RenderedServiceRepository;
 import com.jwt.spring_security.repo.ServiceRepository;
-import jakarta.transaction.Transactional;
+import com.jwt.spring_security.service.LockRetryTemplate;
+import com.jwt.spring_security.service.RenderedServiceHistoryService;
+import com.jwt.spring_security.service.ReportRollupService;
+import com.jwt.spring_security.service.StockService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/service")
@@ -33,8 +51,20 @@ public class ServiceController {
     @Autowired
     private PatientRepo patientRepo;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private RenderedServiceHistoryService renderedServiceHistoryService;
+
     @Autowired
-    private ServiceRepository servicesRepo;
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private LockRetryTemplate lockRetryTemplate;
 
 
     @PostMapping("/addService")
@@ -76,9 +106,13 @@ public class ServiceController {
         }
     }
 
-    @Transactional
+    // One transaction per attempt; a lock timeout or deadlock on the stock rows reruns the whole render
     @PostMapping("/renderService")
     public ResponseEntity<?> renderService(@RequestBody RenderedService request) {
+        return lockRetryTemplate.execute(status -> renderServiceOnce(request));
+    }
+
+    private ResponseEntity<?> renderServiceOnce(RenderedService request) {
         try {
             System.out.println("Received RenderedService: " + request);
 
@@ -97,40 +131,64 @@ public class ServiceController {
                 return ResponseEntity.badRequest().body("At least one service must be selected.");
             }
 
-            List<Services> managedServices = new ArrayList<>();
+            // Resolve every service at once: cached ones from the second-level cache, the rest in one query
+            Set<Long> serviceIds = new LinkedHashSet<>();
             for (Services service : services) {
                 if (service.getServiceID() == null) {
                     return ResponseEntity.badRequest().body("Service ID cannot be null.");
                 }
-                Services existingService = servicesRepo.findById(service.getServiceID())
-                        .orElseThrow(() -> new RuntimeException("Service not found: " + service.getServiceID()));
+                serviceIds.add(service.getServiceID());
+            }
+            Map<Long, Services> servicesById = new HashMap<>();
+            for (Services service : entityManager.unwrap(Session.class)
+                    .byMultipleIds(Services.class)
+                    .multiLoad(new ArrayList<>(serviceIds))) {
+                if (service != null) {
+                    servicesById.put(service.getServiceID(), service);
+                }
+            }
+            List<Services> managedServices = new ArrayList<>();
+            for (Services service : services) {
+                Services existingService = servicesById.get(service.getServiceID());
+                if (existingService == null) {
+                    throw new RuntimeException("Service not found: " + service.getServiceID());
+                }
                 managedServices.add(existingService);
             }
 
             // Validate and update item quantities (if applicable)
             List<Item> items = request.getItems();
-            if (items != null) {
+            List<Item> managedItems = new ArrayList<>();
+            if (items != null && !items.isEmpty()) {
+                // Sum the requested quantity per item so repeated lines are checked against stock together
+                Map<Long, Long> requestedById = new LinkedHashMap<>();
                 for (Item item : items) {
                     if (item.getItemID() == null) {
                         return ResponseEntity.badRequest().body("Item ID cannot be null.");
                     }
-
-                    Item existingItem = itemRepo.findByItemID(item.getItemID());
-                    if (existingItem == null) {
-                        return ResponseEntity.badRequest().body("Item not found: " + item.getItemID());
-                    }
-                    if (existingItem.getItemStock() == null || item.getItemQuantity() == null) {
+                    if (item.getItemQuantity() == null) {
                         return ResponseEntity.badRequest().body("Item quantities must not be null.");
                     }
-                    if (existingItem.getItemStock() < item.getItemQuantity()) {
-                        return ResponseEntity.badRequest().body("Insufficient stock for item: " + existingItem.getItemName());
+                    requestedById.merge(item.getItemID(), item.getItemQuantity(), Long::sum);
+                }
+
+                // Resolve every item in one query
+                Map<Long, Item> itemsById = new HashMap<>();
+                for (Item existingItem : itemRepo.findAllById(requestedById.keySet())) {
+                    itemsById.put(existingItem.getItemID(), existingItem);
+                }
+
+                for (Long itemID : requestedById.keySet()) {
+                    if (!itemsById.containsKey(itemID)) {
+                        return ResponseEntity.badRequest().body("Item not found: " + itemID);
                     }
+                }
 
-                    // Update the quantity
-                    existingItem.setItemStock(existingItem.getItemStock() - item.getItemQuantity());
+                // Conditional per-row decrements; throws (and rolls back) if any line is short
+                stockService.reserve(requestedById, StockService.StockColumn.STOCK);
 
-                    // Save and flush the item to ensure persistence
-                    itemRepo.saveAndFlush(existingItem);
+                for (Item item : items) {
+                    managedItems.add(itemsById.get(item.getItemID()));
                 }
             }
 
@@ -138,13 +196,25 @@ public class ServiceController {
             RenderedService renderedService = new RenderedService();
             renderedService.setPatient(existingPatient);
             renderedService.setServices(managedServices);
-            renderedService.setItems(items);
+            renderedService.setItems(managedItems);
             renderedService.setTotalCost(request.getTotalCost());
             renderedService.setNotes(request.getNotes());
 
             RenderedService savedService = renderedServiceRepository.save(renderedService);
 
+            long medicineUnits = 0;
+            if (items != null) {
+                for (Item item : items) {
+                    medicineUnits += item.getItemQuantity();
+                }
+            }
+            reportRollupService.recordServicesRendered(ReportRollupService.branchIdOf(existingPatient.getBranch()),
+                    savedService.getRenderedAt().toLocalDate(), managedServices.size(), medicineUnits);
+
             return ResponseEntity.ok("Service rendered successfully with ID: " + savedService.getId());
+        } catch (InsufficientStockException | PessimisticLockingFailureException e) {
+            // Let it leave the transaction so it rolls back; a lock failure is retried, then 409 / 503
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("An error occurred: " + e.getMessage());
@@ -204,55 +274,24 @@ public class ServiceController {
         return ResponseEntity.ok(dtoList);
     }
 
+    // Streams the (optionally filtered) history as a JSON array; "to" is exclusive
     @GetMapping("/getRenderedServices")
-    public ResponseEntity<?> getRenderedServices() {
-        List<RenderedService> renderedServices = renderedServiceRepository.findAll();
-
-        if (renderedServices.isEmpty()) {
+    public ResponseEntity<?> getRenderedServices(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                 @RequestParam(required = false) Long branchId) {
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.atStartOfDay() : null;
+
+        // Load the first page up front so an empty result can still answer 404
+        List<RenderedServiceDTO> firstPage = renderedServiceHistoryService.loadPage(0L, fromTime, toTime, branchId);
+        if (firstPage.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No rendered services found.");
         }
 
-        // Map each RenderedService to RenderedServiceDTO
-        List<RenderedServiceDTO> dtoList = new ArrayList<>();
-        for (RenderedService rs : renderedServices) {
-            RenderedServiceDTO dto = new RenderedServiceDTO();
-            dto.setId(rs.getId());
-            dto.setPatientId(rs.getPatient().getClientID()); // only store patient's ID
-            dto.setTotalCost(rs.getTotalCost());
-            dto.setNotes(rs.getNotes());
-
-            // Map services
-            List<ServiceDTO> serviceDTOs = new ArrayList<>();
-            if (rs.getServices() != null) {
-                for (Services service : rs.getServices()) {
-                    ServiceDTO sdto = new ServiceDTO();
-                    sdto.setServiceID(service.getServiceID());
-                    sdto.setServiceName(service.getService_name());
-                    sdto.setServiceDescription(service.getService_description());
-                    sdto.setServicePrice(service.getService_price());
-                    serviceDTOs.add(sdto);
-                }
-            }
-            dto.setServices(serviceDTOs);
-
-            // Map items
-            List<ItemDTO> itemDTOs = new ArrayList<>();
-            if (rs.getItems() != null) {
-                for (Item item : rs.getItems()) {
-                    ItemDTO idto = new ItemDTO();
-                    idto.setItemID(item.getItemID());
-                    idto.setItemName(item.getItemName());
-                    idto.setItemQuantity(item.getItemQuantity());
-                    idto.setItemPrice(item.getItemPrice());
-                    itemDTOs.add(idto);
-                }
-            }
-            dto.setItems(itemDTOs);
-
-            dtoList.add(dto);
-        }
-
-        return ResponseEntity.ok(dtoList);
+        StreamingResponseBody body = out -> renderedServiceHistoryService.writeJson(out, firstPage, fromTime, toTime, branchId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
 
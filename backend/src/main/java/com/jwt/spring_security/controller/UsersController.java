@@ -12,6 +12,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 public class UsersController {
@@ -35,18 +36,19 @@ public class UsersController {
         return usersService.registerUser(user);
     }
 
+    // Async: the request thread is released while the password is verified on the hashing pool
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Users user) {
-        String token = usersService.verify(user);
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Users user) {
+        return usersService.verifyAsync(user).thenApply(token -> {
+            // Extract the role from the authenticated user
+            Users authenticatedUser = usersService.findByUsername(user.getUsername());
 
-        // Extract the role from the authenticated user
-        Users authenticatedUser = usersService.findByUsername(user.getUsername());
-
-        return ResponseEntity.ok(new HashMap<String, String>() {{
-            put("token", token);
-            put("role", authenticatedUser.getRole().toLowerCase());
-            put("username", authenticatedUser.getUsername());
-        }});
+            return ResponseEntity.ok(new HashMap<String, String>() {{
+                put("token", token);
+                put("role", authenticatedUser.getRole().toLowerCase());
+                put("username", authenticatedUser.getUsername());
+            }});
+        });
     }
 
     @GetMapping("/read/{username}")
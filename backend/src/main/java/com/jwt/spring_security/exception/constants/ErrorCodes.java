@@ -25,6 +25,35 @@ public final class ErrorCodes {
         public static final String FIELD_VALIDATION_ERROR = "VAL-003";
     }
 
+    // Inventory Error Codes
+    public static final class Inventory {
+        public static final String INSUFFICIENT_STOCK = "INV-001";
+        public static final String STOCK_BUSY = "INV-002";
+    }
+
+    // Authentication Error Codes
+    public static final class Auth {
+        public static final String LOGIN_THROTTLED = "AUTH-001";
+    }
+
+    // Clock-in Error Codes
+    public static final class ClockIn {
+        public static final String QUEUE_FULL = "CLK-001";
+    }
+
+    // Upload Error Codes
+    public static final class Upload {
+        public static final String TOO_LARGE = "UPL-001";
+        public static final String UNSUPPORTED_TYPE = "UPL-002";
+        public static final String TOO_MANY_PIXELS = "UPL-003";
+    }
+
+    // QR Code Error Codes
+    public static final class QRCode {
+        public static final String DECODE_BUSY = "QR-001";
+        public static final String DECODE_TIMEOUT = "QR-002";
+    }
+
     // System Error Codes
     public static final class System {
         public static final String INTERNAL_ERROR = "SYS-001";
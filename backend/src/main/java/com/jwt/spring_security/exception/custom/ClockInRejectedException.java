@@ -0,0 +1,19 @@
+package com.jwt.spring_security.exception.custom;
+
+import com.jwt.spring_security.exception.constants.ErrorCodes;
+
+/**
+ * Thrown when the clock-in write-behind queue is full. The punch was not journaled;
+ * the client should retry after a short delay.
+ */
+public class ClockInRejectedException extends RuntimeException {
+    private final String errorCode;
+
+    public ClockInRejectedException() {
+        super("Too many clock-ins waiting to be saved, please retry shortly");
+        this.errorCode = ErrorCodes.ClockIn.QUEUE_FULL;
+    }
+
+    // Getters
+    public String getErrorCode() { return errorCode; }
+}
@@ -0,0 +1,26 @@
+package com.jwt.spring_security.exception.custom;
+
+import com.jwt.spring_security.DTO.StockLineResult;
+import com.jwt.spring_security.exception.constants.ErrorCodes;
+
+import java.util.List;
+
+/**
+ * Thrown when at least one line of a basket cannot be reserved.
+ * Carries the result of every line so the caller can show which ones failed;
+ * the surrounding transaction is rolled back, so no stock is deducted.
+ */
+public class InsufficientStockException extends RuntimeException {
+    private final List<StockLineResult> lines;
+    private final String errorCode;
+
+    public InsufficientStockException(List<StockLineResult> lines) {
+        super("Insufficient stock for one or more items; no stock was deducted");
+        this.lines = lines;
+        this.errorCode = ErrorCodes.Inventory.INSUFFICIENT_STOCK;
+    }
+
+    // Getters
+    public List<StockLineResult> getLines() { return lines; }
+    public String getErrorCode() { return errorCode; }
+}
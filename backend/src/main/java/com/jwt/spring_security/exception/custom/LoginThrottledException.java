@@ -0,0 +1,19 @@
+package com.jwt.spring_security.exception.custom;
+
+import com.jwt.spring_security.exception.constants.ErrorCodes;
+
+/**
+ * Thrown when the login hashing pool is saturated. Nothing was verified;
+ * the client should retry after a short delay.
+ */
+public class LoginThrottledException extends RuntimeException {
+    private final String errorCode;
+
+    public LoginThrottledException() {
+        super("Too many logins in progress, please retry shortly");
+        this.errorCode = ErrorCodes.Auth.LOGIN_THROTTLED;
+    }
+
+    // Getters
+    public String getErrorCode() { return errorCode; }
+}
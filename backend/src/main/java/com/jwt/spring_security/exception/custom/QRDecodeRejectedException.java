@@ -0,0 +1,33 @@
+package com.jwt.spring_security.exception.custom;
+
+import com.jwt.spring_security.exception.constants.ErrorCodes;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a QR scan is not decoded: 429 when the decode queue is full, 503 when the scan
+ * ran out of time (queued or decoding). Either way the client can retry shortly.
+ */
+public class QRDecodeRejectedException extends RuntimeException {
+    private final HttpStatus status;
+    private final String errorCode;
+
+    public QRDecodeRejectedException(HttpStatus status, String errorCode, String message) {
+        super(message);
+        this.status = status;
+        this.errorCode = errorCode;
+    }
+
+    public static QRDecodeRejectedException busy() {
+        return new QRDecodeRejectedException(HttpStatus.TOO_MANY_REQUESTS, ErrorCodes.QRCode.DECODE_BUSY,
+                "Too many scans in progress, please retry");
+    }
+
+    public static QRDecodeRejectedException timedOut() {
+        return new QRDecodeRejectedException(HttpStatus.SERVICE_UNAVAILABLE, ErrorCodes.QRCode.DECODE_TIMEOUT,
+                "Timed out decoding QR Code, please retry");
+    }
+
+    // Getters
+    public HttpStatus getStatus() { return status; }
+    public String getErrorCode() { return errorCode; }
+}
@@ -0,0 +1,38 @@
+package com.jwt.spring_security.exception.custom;
+
+import com.jwt.spring_security.exception.constants.ErrorCodes;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown while an upload is being streamed in, as soon as it is known to be too large
+ * or not a supported image. The partial file is discarded.
+ */
+public class UploadRejectedException extends RuntimeException {
+    private final HttpStatus status;
+    private final String errorCode;
+
+    public UploadRejectedException(HttpStatus status, String errorCode, String message) {
+        super(message);
+        this.status = status;
+        this.errorCode = errorCode;
+    }
+
+    public static UploadRejectedException tooLarge(long maxBytes) {
+        return new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, ErrorCodes.Upload.TOO_LARGE,
+                "File exceeds the " + (maxBytes / (1024 * 1024)) + " MB limit");
+    }
+
+    public static UploadRejectedException unsupportedType() {
+        return new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, ErrorCodes.Upload.UNSUPPORTED_TYPE,
+                "Only JPEG, PNG, GIF and BMP images are accepted");
+    }
+
+    public static UploadRejectedException tooManyPixels(long maxPixels) {
+        return new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, ErrorCodes.Upload.TOO_MANY_PIXELS,
+                "Image exceeds the " + (maxPixels / 1_000_000) + " megapixel limit");
+    }
+
+    // Getters
+    public HttpStatus getStatus() { return status; }
+    public String getErrorCode() { return errorCode; }
+}
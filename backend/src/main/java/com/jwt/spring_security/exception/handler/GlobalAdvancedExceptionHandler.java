@@ -1,11 +1,18 @@
 package com.jwt.spring_security.exception.handler;
 
 import com.jwt.spring_security.exception.constants.ErrorCodes;
+import com.jwt.spring_security.exception.custom.ClockInRejectedException;
+import com.jwt.spring_security.exception.custom.InsufficientStockException;
+import com.jwt.spring_security.exception.custom.LoginThrottledException;
+import com.jwt.spring_security.exception.custom.QRDecodeRejectedException;
 import com.jwt.spring_security.exception.custom.ResourceNotFoundException;
+import com.jwt.spring_security.exception.custom.UploadRejectedException;
 import com.jwt.spring_security.exception.custom.ValidationErrorException;
 import com.jwt.spring_security.exception.model.ApiErrorResponse;
 import com.jwt.spring_security.exception.model.ApiSubError;
 import com.jwt.spring_security.exception.model.ApiValidationError;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -56,6 +63,104 @@ public class GlobalAdvancedExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handle Insufficient Stock Exceptions
+     * Returns the per-line reservation results so the client can see which items failed
+     */
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<ApiErrorResponse> handleInsufficientStock(InsufficientStockException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(
+                HttpStatus.CONFLICT,
+                ex.getMessage(),
+                ex.getErrorCode()
+        ).withMetadata(Map.of("lines", ex.getLines()));
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handle Lock Timeouts and Deadlocks
+     * The transaction (e.g. a stock reservation) was rolled back as a whole; the client resends the request
+     */
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<ApiErrorResponse> handleLockFailure(PessimisticLockingFailureException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "The items are busy, please retry",
+                ErrorCodes.Inventory.STOCK_BUSY
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    /**
+     * Handle Login Throttling
+     * The hashing pool is saturated; tells the client when to retry instead of holding the request
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<ApiErrorResponse> handleLoginThrottled(LoginThrottledException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS,
+                ex.getMessage(),
+                ex.getErrorCode()
+        );
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    /**
+     * Handle Clock-in Backpressure
+     * The write-behind queue is full, so the punch was not recorded; the client retries shortly
+     */
+    @ExceptionHandler(ClockInRejectedException.class)
+    public ResponseEntity<ApiErrorResponse> handleClockInRejected(ClockInRejectedException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                ex.getMessage(),
+                ex.getErrorCode()
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    /**
+     * Handle Rejected QR Scans
+     * 429 when the decode queue is full, 503 when the scan timed out; both are worth a retry
+     */
+    @ExceptionHandler(QRDecodeRejectedException.class)
+    public ResponseEntity<ApiErrorResponse> handleQRDecodeRejected(QRDecodeRejectedException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(
+                ex.getStatus(),
+                ex.getMessage(),
+                ex.getErrorCode()
+        );
+
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    /**
+     * Handle Rejected Uploads
+     * 413 for bodies over the size limit, 415 for files that are not a supported image
+     */
+    @ExceptionHandler(UploadRejectedException.class)
+    public ResponseEntity<ApiErrorResponse> handleUploadRejected(UploadRejectedException ex) {
+        ApiErrorResponse error = new ApiErrorResponse(
+                ex.getStatus(),
+                ex.getMessage(),
+                ex.getErrorCode()
+        );
+
+        return new ResponseEntity<>(error, ex.getStatus());
+    }
+
     /**
      * Handle Validation Errors
      * Captures and reports multiple validation errors
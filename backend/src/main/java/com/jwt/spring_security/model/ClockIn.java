@@ -1,19 +1,31 @@
 package com.jwt.spring_security.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_clock_in_employee_time", columnList = "employeeId, timestamp"),
+        @Index(name = "idx_clock_in_branch_time", columnList = "branchId, timestamp"),
+        @Index(name = "idx_clock_in_time", columnList = "timestamp")
+})
 public class ClockIn {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Assigned when the punch is journaled; makes replaying the clock-in journal idempotent
+    @Column(unique = true, length = 36)
+    private String punchId;
+
     private String employeeId;
     private Long branchId;
     private LocalDateTime timestamp;
@@ -26,6 +38,14 @@ public class ClockIn {
         this.id = id;
     }
 
+    public String getPunchId() {
+        return punchId;
+    }
+
+    public void setPunchId(String punchId) {
+        this.punchId = punchId;
+    }
+
     public String getEmployeeId() {
         return employeeId;
     }
@@ -64,7 +64,7 @@ public class Consultation {
         this.FHT = FHT;
     }
 
-    public int getAOG() {
+    public Integer getAOG() {
         return AOG;
     }
 
@@ -80,7 +80,7 @@ public class Consultation {
         this.BP = BP;
     }
 
-    public float getWeight() {
+    public Float getWeight() {
         return weight;
     }
 
@@ -88,7 +88,7 @@ public class Consultation {
         this.weight = weight;
     }
 
-    public float getFH() {
+    public Float getFH() {
         return FH;
     }
 
@@ -96,7 +96,7 @@ public class Consultation {
         this.FH = FH;
     }
 
-    public float getFHT() {
+    public Float getFHT() {
         return FHT;
     }
 
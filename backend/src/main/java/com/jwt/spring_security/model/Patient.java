@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import java.util.Date;
 
 @Entity
+@Table(indexes = @Index(name = "idx_patient_branch_status", columnList = "branchID, status, clientID"))
 public class Patient {
 
     @Id
@@ -43,7 +43,7 @@ public class Pregnancy {
         this.patient = patient;
     }
 
-    public int getGravida() {
+    public Integer getGravida() {
         return gravida;
     }
 
@@ -51,7 +51,7 @@ public class Pregnancy {
         this.gravida = gravida;
     }
 
-    public int getPara() {
+    public Integer getPara() {
         return para;
     }
 
@@ -59,7 +59,7 @@ public class Pregnancy {
         this.para = para;
     }
 
-    public int getTerm() {
+    public Integer getTerm() {
         return term;
     }
 
@@ -67,7 +67,7 @@ public class Pregnancy {
         this.term = term;
     }
 
-    public int getPre_term() {
+    public Integer getPre_term() {
         return pre_term;
     }
 
@@ -75,7 +75,7 @@ public class Pregnancy {
         this.pre_term = pre_term;
     }
 
-    public int getAbortion() {
+    public Integer getAbortion() {
         return abortion;
     }
 
@@ -83,7 +83,7 @@ public class Pregnancy {
         this.abortion = abortion;
     }
 
-    public int getLiving() {
+    public Integer getLiving() {
         return living;
     }
 
@@ -1,9 +1,12 @@
 package com.jwt.spring_security.model;
 
 import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_rendered_service_rendered_at", columnList = "rendered_at"))
 public class RenderedService {
 
     @Id
@@ -34,6 +37,9 @@ public class RenderedService {
 
     private String notes;
 
+    @Column(name = "rendered_at", updatable = false)
+    private LocalDateTime renderedAt = LocalDateTime.now();
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -82,4 +88,12 @@ public class RenderedService {
     public void setNotes(String notes) {
         this.notes = notes;
     }
+
+    public LocalDateTime getRenderedAt() {
+        return renderedAt;
+    }
+
+    public void setRenderedAt(LocalDateTime renderedAt) {
+        this.renderedAt = renderedAt;
+    }
 }
@@ -4,17 +4,26 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "reports") // Optional: Specify table name
+@Table(name = "reports", // Optional: Specify table name
+        uniqueConstraints = @UniqueConstraint(name = "uk_reports_date_branch", columnNames = {"date", "branch_id"}))
 public class Report {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id; // Primary key
 
+    // One row per day per branch; column names are explicit because reportRepo upserts them natively
+    @Column(name = "date")
     private LocalDate date;
+    @Column(name = "branch_id", nullable = false)
+    private long branchId; // 0 when the event had no branch
+    @Column(name = "service_availed")
     private int serviceAvailed;
+    @Column(name = "medicine_sold")
     private int medicineSold;
+    @Column(name = "patient_check_ins")
     private long patientCheckIns; // Change to long
+    @Column(name = "employee_check_ins")
     private long employeeCheckIns; // Change to long
 
     // Default Constructor
@@ -46,6 +55,14 @@ public class Report {
         this.date = date;
     }
 
+    public long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(long branchId) {
+        this.branchId = branchId;
+    }
+
     public int getServiceAvailed() {
         return serviceAvailed;
     }
@@ -84,6 +101,7 @@ public class Report {
         return "Report{" +
                 "id=" + id +
                 ", date=" + date +
+                ", branchId=" + branchId +
                 ", serviceAvailed=" + serviceAvailed +
                 ", medicineSold=" + medicineSold +
                 ", patientsCheckIns=" + patientCheckIns +
@@ -2,8 +2,13 @@ package com.jwt.spring_security.model;
 
 import jakarta.persistence.*;
 import org.antlr.v4.runtime.misc.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+// Service catalog; kept in the second-level cache ("services" region), branch resolved from the "branch" region
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "services")
 public class Services {
     @Id
     @GeneratedValue(strategy= GenerationType.IDENTITY)
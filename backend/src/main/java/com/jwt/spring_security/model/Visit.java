@@ -6,6 +6,10 @@ import java.time.LocalDate;
 import java.util.Date;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_visit_date", columnList = "visit_date"),
+        @Index(name = "idx_visit_patient_date", columnList = "patient_id, visit_date")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_visit_patient_day", columnNames = {"patient_id", "visit_day"}))
 public class Visit {
 
     @Id
@@ -23,6 +27,10 @@ public class Visit {
     @Temporal(TemporalType.TIMESTAMP)
     private Date visitDate = new Date();
 
+    // Calendar day of visitDate; at most one visit per patient per day (uk_visit_patient_day)
+    @Column(name = "visit_day", updatable = false)
+    private LocalDate visitDay = LocalDate.now();
+
     public Long getId() {
         return id;
     }
@@ -54,5 +62,13 @@ public class Visit {
     public void setVisitDate(Date visitDate) {
         this.visitDate = visitDate;
     }
+
+    public LocalDate getVisitDay() {
+        return visitDay;
+    }
+
+    public void setVisitDay(LocalDate visitDay) {
+        this.visitDay = visitDay;
+    }
 }
 
@@ -1,10 +1,55 @@
 package com.jwt.spring_security.repo;
 
-import com.jwt.spring_security.DTO.ClockInRequest;
+import com.jwt.spring_security.DTO.ClockInResponse;
 import com.jwt.spring_security.model.ClockIn;
+import com.jwt.spring_security.util.Constants;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface ClockInRepository extends JpaRepository<ClockIn, Long> {
+
+    // Punches newest first by punch time; keyset page of rows before (:beforeTime, :beforeId).
+    // Ordering on (timestamp, id) follows the (employeeId|branchId, timestamp) and (timestamp) indexes,
+    // whose entries end in the primary key, so a page is an index range scan without a filesort.
+    @Query("SELECT new com.jwt.spring_security.DTO.ClockInResponse(c.id, c.employeeId, c.branchId, c.timestamp) " +
+            "FROM ClockIn c " +
+            "WHERE (:employeeId IS NULL OR c.employeeId = :employeeId) " +
+            "AND (:branchId IS NULL OR c.branchId = :branchId) " +
+            "AND (:from IS NULL OR c.timestamp >= :from) " +
+            "AND (:to IS NULL OR c.timestamp < :to) " +
+            "AND (:beforeTime IS NULL OR (c.timestamp <= :beforeTime " +
+            "AND (c.timestamp < :beforeTime OR c.id < :beforeId))) " +
+            "ORDER BY c.timestamp DESC, c.id DESC")
+    List<ClockInResponse> findBefore(LocalDateTime beforeTime, Long beforeId, String employeeId, Long branchId,
+                                     LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    // Attendance per employee per day: employeeId, day, first punch, last punch, punch count
+    @Query("SELECT c.employeeId, CAST(c.timestamp AS LocalDate), MIN(c.timestamp), MAX(c.timestamp), COUNT(c) " +
+            "FROM ClockIn c " +
+            "WHERE (:employeeId IS NULL OR c.employeeId = :employeeId) " +
+            "AND (:branchId IS NULL OR c.branchId = :branchId) " +
+            "AND (:from IS NULL OR c.timestamp >= :from) " +
+            "AND (:to IS NULL OR c.timestamp < :to) " +
+            "GROUP BY c.employeeId, CAST(c.timestamp AS LocalDate) " +
+            "ORDER BY CAST(c.timestamp AS LocalDate), c.employeeId")
+    List<Object[]> aggregateAttendance(String employeeId, Long branchId, LocalDateTime from, LocalDateTime to);
+
+    // Export stream (DataExportService): forward-only, streamed by the driver row by row
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.MYSQL_STREAMING_FETCH_SIZE))
+    @Query("SELECT c.id, c.employeeId, c.branchId, c.timestamp FROM ClockIn c " +
+            "WHERE (:from IS NULL OR c.timestamp >= :from) " +
+            "AND (:to IS NULL OR c.timestamp < :to) " +
+            "AND (:branchId IS NULL OR c.branchId = :branchId) " +
+            "ORDER BY c.id")
+    Stream<Object[]> streamExportRows(LocalDateTime from, LocalDateTime to, Long branchId);
 }
@@ -3,6 +3,8 @@ package com.jwt.spring_security.repo;
 import com.jwt.spring_security.model.Item;
 import com.jwt.spring_security.model.Users;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -10,4 +12,13 @@ public interface ItemRepo extends JpaRepository<Item, Long> {
 
     Item findByItemID(Long id);
 
+    // Conditional decrements: the row is only changed when enough is left, so concurrent sales never oversell
+    @Modifying
+    @Query("UPDATE Item i SET i.itemStock = i.itemStock - :quantity WHERE i.itemID = :itemID AND i.itemStock >= :quantity")
+    int decrementStock(Long itemID, Long quantity);
+
+    @Modifying
+    @Query("UPDATE Item i SET i.itemQuantity = i.itemQuantity - :quantity WHERE i.itemID = :itemID AND i.itemQuantity >= :quantity")
+    int decrementQuantity(Long itemID, Long quantity);
+
 }
@@ -1,12 +1,20 @@
 package com.jwt.spring_security.repo;
 
+import com.jwt.spring_security.DTO.PatientSummaryDTO;
 import com.jwt.spring_security.model.Patient;
+import com.jwt.spring_security.util.Constants;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PatientRepo extends JpaRepository<Patient, Long> {
@@ -15,4 +23,43 @@ public interface PatientRepo extends JpaRepository<Patient, Long> {
     List<Patient> findActivePatients();
     List<Patient> findByGivenNameAndStatus(String givenName, String status);
     Optional<Patient> findByPatientID(String patientID);
+
+    @Query("SELECT p.patientID FROM Patient p WHERE p.patientID IN :patientIDs")
+    List<String> findExistingPatientIDs(Collection<String> patientIDs);
+
+    // Keyset page over clientID; selects scalar columns only so no one-to-one graphs are fetched
+    @Query("SELECT new com.jwt.spring_security.DTO.PatientSummaryDTO(p.clientID, p.patientID, p.lastName, p.givenName, " +
+            "p.middleName, p.sex, p.age, p.contactNumber, p.status, p.imagePath, b.branchID, b.branchName) " +
+            "FROM Patient p LEFT JOIN p.branch b " +
+            "WHERE p.clientID > :after " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "AND (:status IS NULL OR p.status = :status) " +
+            "ORDER BY p.clientID")
+    List<PatientSummaryDTO> findSummariesAfter(Long after, Long branchId, String status, Pageable pageable);
+
+    @Query("SELECT new com.jwt.spring_security.DTO.PatientSummaryDTO(p.clientID, p.patientID, p.lastName, p.givenName, " +
+            "p.middleName, p.sex, p.age, p.contactNumber, p.status, p.imagePath, b.branchID, b.branchName) " +
+            "FROM Patient p LEFT JOIN p.branch b " +
+            "WHERE p.clientID IN :clientIDs " +
+            "ORDER BY p.clientID")
+    List<PatientSummaryDTO> findSummariesByIds(Collection<Long> clientIDs);
+
+    // The whole record in one round trip: branch and all four one-to-ones are fetch-joined
+    @Query("SELECT p FROM Patient p LEFT JOIN FETCH p.branch LEFT JOIN FETCH p.spouse LEFT JOIN FETCH p.pregnancy " +
+            "LEFT JOIN FETCH p.consultation LEFT JOIN FETCH p.medicalHistory WHERE p.clientID = :clientID")
+    Optional<Patient> findRecordById(Long clientID);
+
+    @Query("SELECT COUNT(p) FROM Patient p LEFT JOIN p.branch b " +
+            "WHERE (:branchId IS NULL OR b.branchID = :branchId) " +
+            "AND (:status IS NULL OR p.status = :status)")
+    long countSummaries(Long branchId, String status);
+
+    // Export stream (DataExportService): forward-only, streamed by the driver row by row
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.MYSQL_STREAMING_FETCH_SIZE))
+    @Query("SELECT p.clientID, p.patientID, p.lastName, p.givenName, p.middleName, p.sex, p.age, p.birthday, " +
+            "p.address, p.contactNumber, p.religion, p.occupation, p.status, b.branchID " +
+            "FROM Patient p LEFT JOIN p.branch b " +
+            "WHERE (:branchId IS NULL OR b.branchID = :branchId) " +
+            "ORDER BY p.clientID")
+    Stream<Object[]> streamExportRows(Long branchId);
 }
@@ -1,14 +1,53 @@
 package com.jwt.spring_security.repo;
 
+import com.jwt.spring_security.DTO.RenderedServiceDTO;
 import com.jwt.spring_security.model.RenderedService;
+import com.jwt.spring_security.util.Constants;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface RenderedServiceRepository extends JpaRepository<RenderedService, Long> {
     @Query("SELECT rs FROM RenderedService rs WHERE rs.patient.clientID = :patientId")
     List<RenderedService> findByPatientId(Long patientId);
 
+    // Keyset page of rendered-service headers; services and items are loaded per page below
+    @Query("SELECT new com.jwt.spring_security.DTO.RenderedServiceDTO(rs.id, p.clientID, rs.totalCost, rs.notes, rs.renderedAt) " +
+            "FROM RenderedService rs JOIN rs.patient p LEFT JOIN p.branch b " +
+            "WHERE rs.id > :after " +
+            "AND (:from IS NULL OR rs.renderedAt >= :from) " +
+            "AND (:to IS NULL OR rs.renderedAt < :to) " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "AND (:patientId IS NULL OR p.clientID = :patientId) " +
+            "ORDER BY rs.id")
+    List<RenderedServiceDTO> findDtosAfter(Long after, LocalDateTime from, LocalDateTime to, Long branchId, Long patientId,
+                                           Pageable pageable);
 
+    // One row per (renderedServiceId, service) pair: id, serviceID, name, description, price
+    @Query("SELECT rs.id, s.serviceID, s.service_name, s.service_description, s.service_price " +
+            "FROM RenderedService rs JOIN rs.services s WHERE rs.id IN :ids")
+    List<Object[]> findServiceRows(Collection<Long> ids);
+
+    // One row per (renderedServiceId, item) pair: id, itemID, name, quantity, price
+    @Query("SELECT rs.id, i.itemID, i.itemName, i.itemQuantity, i.itemPrice " +
+            "FROM RenderedService rs JOIN rs.items i WHERE rs.id IN :ids")
+    List<Object[]> findItemRows(Collection<Long> ids);
+
+    // Export stream (DataExportService): forward-only, streamed by the driver row by row
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.MYSQL_STREAMING_FETCH_SIZE))
+    @Query("SELECT rs.id, p.clientID, b.branchID, rs.renderedAt, rs.totalCost, rs.notes " +
+            "FROM RenderedService rs JOIN rs.patient p LEFT JOIN p.branch b " +
+            "WHERE (:from IS NULL OR rs.renderedAt >= :from) " +
+            "AND (:to IS NULL OR rs.renderedAt < :to) " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "ORDER BY rs.id")
+    Stream<Object[]> streamExportRows(LocalDateTime from, LocalDateTime to, Long branchId);
 }
@@ -1,10 +1,17 @@
 package com.jwt.spring_security.repo;
 
-import com.jwt.spring_security.model.Service;
 import com.jwt.spring_security.model.Services;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface ServiceRepository extends JpaRepository<Services, Long> {
+import java.util.List;
 
+public interface ServiceRepository extends JpaRepository<Services, Long> {
 
+    // /service/getServices: the id list is kept in the query cache and the rows in the "services" region
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Services> findAll();
 }
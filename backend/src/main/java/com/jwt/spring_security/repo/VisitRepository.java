@@ -1,10 +1,106 @@
 package com.jwt.spring_security.repo;
 
+import com.jwt.spring_security.DTO.VisitLogDTO;
 import com.jwt.spring_security.model.Patient;
 import com.jwt.spring_security.model.Visit;
+import com.jwt.spring_security.util.Constants;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface VisitRepository extends JpaRepository<Visit, Long> {
     Visit findTopByPatientOrderByVisitDateDesc(Patient patient);
-}
 
+    // Check-in in one statement: inserts only if the patient exists and has no visit that day.
+    // Returns 0 for both "already logged" and "no such patient". Not INSERT IGNORE, so a bad value still
+    // fails; two racing check-ins can both pass NOT EXISTS, and the loser fails on uk_visit_patient_day.
+    // Declares its query space so the insert does not evict unrelated second-level cache regions.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "visit"))
+    @Query(value = "INSERT INTO visit (patient_id, purpose, visit_date, visit_day) " +
+            "SELECT p.clientid, :purpose, :visitDate, :visitDay FROM patient p WHERE p.clientid = :patientId " +
+            "AND NOT EXISTS (SELECT 1 FROM visit v WHERE v.patient_id = :patientId AND v.visit_day = :visitDay)",
+            nativeQuery = true)
+    int insertIfAbsent(Long patientId, String purpose, Date visitDate, LocalDate visitDay);
+
+    @Query("SELECT COUNT(v) > 0 FROM Visit v WHERE v.patient.clientID = :patientId AND v.visitDay = :day")
+    boolean existsForDay(Long patientId, LocalDate day);
+
+    @Query("SELECT v.patient.clientID FROM Visit v WHERE v.visitDay = :day")
+    List<Long> findPatientIdsByVisitDay(LocalDate day);
+
+    // Fills visit_day for visits recorded before the column existed; same-day duplicates keep it null
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "visit"))
+    @Query(value = "UPDATE IGNORE visit SET visit_day = DATE(visit_date) WHERE visit_day IS NULL", nativeQuery = true)
+    int backfillVisitDays();
+
+    // Keyset page of one patient's visits as (id, visitDate, purpose) rows, without loading the patient graph
+    @Query("SELECT v.id, v.visitDate, v.purpose FROM Visit v WHERE v.patient.clientID = :clientID AND v.id > :after ORDER BY v.id")
+    List<Object[]> findHistoryRows(Long clientID, Long after, Pageable pageable);
+
+    // Visit log (VisitLogService), newest first by visit time: keyset page of rows before (:beforeDate, :beforeId).
+    // visitDate is client-settable, so it does not follow id order; (visit_date, id) is the idx_visit_date
+    // index (its entries end in the primary key), so a page is an index range scan without a filesort.
+    @Query("SELECT new com.jwt.spring_security.DTO.VisitLogDTO(v.id, v.visitDate, v.purpose, p.clientID, p.patientID, " +
+            "p.lastName, p.givenName, b.branchID) " +
+            "FROM Visit v JOIN v.patient p LEFT JOIN p.branch b " +
+            "WHERE (:from IS NULL OR v.visitDate >= :from) " +
+            "AND (:to IS NULL OR v.visitDate < :to) " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "AND (:purpose IS NULL OR v.purpose = :purpose) " +
+            "AND (:patientId IS NULL OR p.clientID = :patientId) " +
+            "AND (:beforeDate IS NULL OR (v.visitDate <= :beforeDate " +
+            "AND (v.visitDate < :beforeDate OR v.id < :beforeId))) " +
+            "ORDER BY v.visitDate DESC, v.id DESC")
+    List<VisitLogDTO> findLogBefore(Date beforeDate, Long beforeId, Date from, Date to, Long branchId, String purpose,
+                                    Long patientId, Pageable pageable);
+
+    // Aggregates over the same filters as findLogBefore
+    @Query("SELECT COUNT(v) FROM Visit v JOIN v.patient p LEFT JOIN p.branch b " +
+            "WHERE (:from IS NULL OR v.visitDate >= :from) " +
+            "AND (:to IS NULL OR v.visitDate < :to) " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "AND (:purpose IS NULL OR v.purpose = :purpose) " +
+            "AND (:patientId IS NULL OR p.clientID = :patientId)")
+    long countLog(Date from, Date to, Long branchId, String purpose, Long patientId);
+
+    @Query("SELECT CAST(v.visitDate AS LocalDate), COUNT(v) FROM Visit v JOIN v.patient p LEFT JOIN p.branch b " +
+            "WHERE (:from IS NULL OR v.visitDate >= :from) " +
+            "AND (:to IS NULL OR v.visitDate < :to) " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "AND (:purpose IS NULL OR v.purpose = :purpose) " +
+            "AND (:patientId IS NULL OR p.clientID = :patientId) " +
+            "GROUP BY CAST(v.visitDate AS LocalDate) " +
+            "ORDER BY CAST(v.visitDate AS LocalDate)")
+    List<Object[]> countLogPerDay(Date from, Date to, Long branchId, String purpose, Long patientId);
+
+    @Query("SELECT v.purpose, COUNT(v) FROM Visit v JOIN v.patient p LEFT JOIN p.branch b " +
+            "WHERE (:from IS NULL OR v.visitDate >= :from) " +
+            "AND (:to IS NULL OR v.visitDate < :to) " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "AND (:purpose IS NULL OR v.purpose = :purpose) " +
+            "AND (:patientId IS NULL OR p.clientID = :patientId) " +
+            "GROUP BY v.purpose " +
+            "ORDER BY COUNT(v) DESC")
+    List<Object[]> countLogPerPurpose(Date from, Date to, Long branchId, String purpose, Long patientId);
+
+    // Export stream (DataExportService): forward-only, streamed by the driver row by row
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Constants.MYSQL_STREAMING_FETCH_SIZE))
+    @Query("SELECT v.id, p.clientID, p.patientID, b.branchID, v.visitDate, v.purpose " +
+            "FROM Visit v JOIN v.patient p LEFT JOIN p.branch b " +
+            "WHERE (:from IS NULL OR v.visitDate >= :from) " +
+            "AND (:to IS NULL OR v.visitDate < :to) " +
+            "AND (:branchId IS NULL OR b.branchID = :branchId) " +
+            "ORDER BY v.id")
+    Stream<Object[]> streamExportRows(Date from, Date to, Long branchId);
+}
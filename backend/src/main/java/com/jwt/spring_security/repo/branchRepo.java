@@ -1,9 +1,24 @@
 package com.jwt.spring_security.repo;
 
 import com.jwt.spring_security.model.Branch;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface branchRepo extends JpaRepository<Branch, Long> {
-    Branch findByBranchID(Long id);
+
+    // Lookup by primary key, so it is answered from the second-level cache instead of a query
+    default Branch findByBranchID(Long id) {
+        return id != null ? findById(id).orElse(null) : null;
+    }
+
     Branch findByBranchName(String branchName);
+
+    // /branches: the id list is kept in the query cache and the rows in the "branch" region
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Branch> findAll();
 }
@@ -1,22 +1,78 @@
 package com.jwt.spring_security.repo;
 
 import com.jwt.spring_security.model.Report;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface reportRepo extends JpaRepository<Report, Long> {
 
-    @Query("SELECT YEAR(p.pregnancy.EDC) AS year, MONTH(p.pregnancy.EDC) AS month, COUNT(p) AS totalPatients " +
-            "FROM Patient p GROUP BY YEAR(p.pregnancy.EDC), MONTH(p.pregnancy.EDC)")
-    List<Object[]> aggregatePatientCheckIns();
+    // Adds the deltas to the (date, branch) rollup row, creating it on first use; one statement, no read.
+    // The query space limits what Hibernate flushes and invalidates to reports; without it a native
+    // statement evicts every second-level cache region (branch, services) on each event.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "reports"))
+    @Query(value = "INSERT INTO reports (date, branch_id, patient_check_ins, employee_check_ins, service_availed, medicine_sold) " +
+            "VALUES (:date, :branchId, :patientCheckIns, :employeeCheckIns, :servicesAvailed, :medicineSold) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "patient_check_ins = patient_check_ins + VALUES(patient_check_ins), " +
+            "employee_check_ins = employee_check_ins + VALUES(employee_check_ins), " +
+            "service_availed = service_availed + VALUES(service_availed), " +
+            "medicine_sold = medicine_sold + VALUES(medicine_sold)",
+            nativeQuery = true)
+    void upsertIncrement(LocalDate date, long branchId, long patientCheckIns, long employeeCheckIns,
+                         long servicesAvailed, long medicineSold);
 
+    // One patient check-in on the rollup row of the patient's branch, resolved in the same statement.
+    // Only the written table is declared: patient is read, never changed, in the check-in transaction
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "reports"))
+    @Query(value = "INSERT INTO reports (date, branch_id, patient_check_ins, employee_check_ins, service_availed, medicine_sold) " +
+            "SELECT :date, COALESCE(p.branchid, 0), 1, 0, 0, 0 FROM patient p WHERE p.clientid = :patientId " +
+            "ON DUPLICATE KEY UPDATE patient_check_ins = patient_check_ins + 1",
+            nativeQuery = true)
+    void upsertPatientCheckIn(LocalDate date, Long patientId);
 
-    // Aggregating employee check-ins grouped by year and month
-    @Query("SELECT YEAR(e.loginTimeStamp) AS year, MONTH(e.loginTimeStamp) AS month, COUNT(e) AS totalEmployees " +
-            "FROM Employee e GROUP BY YEAR(e.loginTimeStamp), MONTH(e.loginTimeStamp)")
-    List<Object[]> aggregateEmployeeCheckIns();
+    // Monthly totals from the daily rollups; reads at most one row per day per branch
+    @Query("SELECT YEAR(r.date), MONTH(r.date), SUM(r.patientCheckIns), SUM(r.employeeCheckIns), " +
+            "SUM(r.serviceAvailed), SUM(r.medicineSold) " +
+            "FROM Report r WHERE (:branchId IS NULL OR r.branchId = :branchId) " +
+            "GROUP BY YEAR(r.date), MONTH(r.date) " +
+            "ORDER BY YEAR(r.date), MONTH(r.date)")
+    List<Object[]> sumByMonth(Long branchId);
+
+    // Rebuild support: clears the counts that can be recomputed from source tables. medicine_sold is kept,
+    // since over-the-counter sales and per-line quantities are only ever recorded in the rollups
+    @Modifying
+    @Query("UPDATE Report r SET r.patientCheckIns = 0, r.employeeCheckIns = 0, r.serviceAvailed = 0")
+    int resetDerivedCounts();
+
+    @Modifying
+    @Query("DELETE FROM Report r WHERE r.patientCheckIns = 0 AND r.employeeCheckIns = 0 " +
+            "AND r.serviceAvailed = 0 AND r.medicineSold = 0")
+    int deleteEmptyRows();
+
+    // Source aggregates used to rebuild the rollups: day, branchID (nullable), count
+    @Query("SELECT CAST(v.visitDate AS LocalDate), b.branchID, COUNT(v) " +
+            "FROM Visit v JOIN v.patient p LEFT JOIN p.branch b " +
+            "GROUP BY CAST(v.visitDate AS LocalDate), b.branchID")
+    List<Object[]> aggregateVisitsByDayAndBranch();
+
+    @Query("SELECT CAST(c.timestamp AS LocalDate), c.branchId, COUNT(c) " +
+            "FROM ClockIn c GROUP BY CAST(c.timestamp AS LocalDate), c.branchId")
+    List<Object[]> aggregateClockInsByDayAndBranch();
+
+    @Query("SELECT CAST(rs.renderedAt AS LocalDate), b.branchID, COUNT(s) " +
+            "FROM RenderedService rs JOIN rs.services s JOIN rs.patient p LEFT JOIN p.branch b " +
+            "WHERE rs.renderedAt IS NOT NULL " +
+            "GROUP BY CAST(rs.renderedAt AS LocalDate), b.branchID")
+    List<Object[]> aggregateServicesByDayAndBranch();
 }
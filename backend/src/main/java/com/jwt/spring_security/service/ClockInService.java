@@ -1,40 +1,95 @@
 package com.jwt.spring_security.service;
 
+import com.jwt.spring_security.DTO.AttendanceDayDTO;
 import com.jwt.spring_security.DTO.ClockInRequest;
 import com.jwt.spring_security.DTO.ClockInResponse;
-import com.jwt.spring_security.model.ClockIn;
+import com.jwt.spring_security.DTO.KeysetPageDTO;
 import com.jwt.spring_security.repo.ClockInRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class ClockInService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final ClockInRepository clockInRepository;
+    private final ClockInWriteBehind clockInWriteBehind;
+
+    private final int defaultDays;
 
-    public ClockInService(ClockInRepository clockInRepository) {
+    public ClockInService(ClockInRepository clockInRepository, ClockInWriteBehind clockInWriteBehind,
+                          @Value("${clockin.list.default-days:30}") int defaultDays) {
         this.clockInRepository = clockInRepository;
+        this.clockInWriteBehind = clockInWriteBehind;
+        this.defaultDays = defaultDays;
+    }
+
+    // Journaled and acknowledged immediately; the row (and its rollup) is written by the next batch flush
+    public ClockInWriteBehind.Punch saveClockIn(ClockInRequest request) {
+        return clockInWriteBehind.accept(request.getEmployeeId(), request.getBranchId());
+    }
+
+    /**
+     * Punches matching the filters, newest first. Without a start date only the last
+     * clockin.list.default-days are returned, so the plain list no longer grows with history.
+     */
+    public List<ClockInResponse> getClockIns(String employeeId, Long branchId, LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now().minusDays(defaultDays);
+        return clockInRepository.findBefore(null, null, employeeId, branchId, start.atStartOfDay(), endOf(to), Pageable.unpaged());
+    }
+
+    /**
+     * @param before nextCursor of the previous page ("timestamp_id"), or null for the newest punches.
+     *               Ids are assigned when the write-behind flushes, so they do not follow punch time.
+     */
+    public KeysetPageDTO<ClockInResponse> listClockIns(String before, int size, String employeeId, Long branchId,
+                                                       LocalDate from, LocalDate to) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        LocalDateTime beforeTime = null;
+        Long beforeId = null;
+        if (before != null) {
+            int separator = before.lastIndexOf('_');
+            try {
+                beforeTime = LocalDateTime.parse(before.substring(0, Math.max(separator, 0)));
+                beforeId = Long.parseLong(before.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + before);
+            }
+        }
+        List<ClockInResponse> fetched = clockInRepository.findBefore(beforeTime, beforeId, employeeId, branchId,
+                startOf(from), endOf(to), PageRequest.of(0, pageSize + 1));
+        return KeysetPageDTO.of(fetched, pageSize, punch -> punch.getTimestamp() + "_" + punch.getId(), null);
+    }
+
+    // Daily first-in / last-out per employee; hours are the span between them, rounded to minutes
+    public List<AttendanceDayDTO> getAttendance(String employeeId, Long branchId, LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : LocalDate.now().minusDays(defaultDays);
+        List<AttendanceDayDTO> days = new ArrayList<>();
+        for (Object[] row : clockInRepository.aggregateAttendance(employeeId, branchId, start.atStartOfDay(), endOf(to))) {
+            LocalDateTime firstIn = (LocalDateTime) row[2];
+            LocalDateTime lastOut = (LocalDateTime) row[3];
+            double hours = Duration.between(firstIn, lastOut).toMinutes() / 60.0;
+            days.add(new AttendanceDayDTO((String) row[0], (LocalDate) row[1], firstIn, lastOut, (Long) row[4],
+                    Math.round(hours * 100) / 100.0));
+        }
+        return days;
     }
 
-    public void saveClockIn(ClockInRequest request) {
-        ClockIn clockIn = new ClockIn();
-        clockIn.setEmployeeId(request.getEmployeeId());
-        clockIn.setBranchId(request.getBranchId());
-        clockIn.setTimestamp(LocalDateTime.now());
-        clockInRepository.save(clockIn);
+    private static LocalDateTime startOf(LocalDate day) {
+        return day != null ? day.atStartOfDay() : null;
     }
 
-    public List<ClockInResponse> getAllClockIns() {
-        return clockInRepository.findAll().stream()
-                .map(clockIn -> new ClockInResponse(
-                        clockIn.getId(),
-                        clockIn.getEmployeeId(),
-                        clockIn.getBranchId(),
-                        clockIn.getTimestamp()
-                ))
-                .collect(Collectors.toList());
+    // "to" is exclusive, as on /owner/visits and /export, so the bound is the start of that day
+    private static LocalDateTime endOf(LocalDate day) {
+        return day != null ? day.atStartOfDay() : null;
     }
 }
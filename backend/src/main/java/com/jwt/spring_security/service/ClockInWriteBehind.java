@@ -0,0 +1,349 @@
+package com.jwt.spring_security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jwt.spring_security.exception.custom.ClockInRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind ingestion for clock-in punches.
+ *
+ * A punch is appended to a local journal (fsynced) and queued, and the request is acknowledged
+ * right away. A single flusher thread drains the queue every few hundred milliseconds and writes
+ * the punches with multi-row INSERTs in one transaction, together with the report rollups.
+ *
+ * The journal is split into numbered segments. Each flush seals the current segment and deletes
+ * it once its punches are committed, so after a crash the remaining segments are exactly the
+ * punches that may not have reached the database; they are replayed on startup. Every punch
+ * carries a unique punchId, so replaying one that was in fact committed is a no-op.
+ */
+@Component
+public class ClockInWriteBehind {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // Kept as a plain JSON line per punch in the journal
+    public static class Punch {
+        public String punchId;
+        public String employeeId;
+        public Long branchId;
+        public LocalDateTime timestamp;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReportRollupService reportRollupService;
+    private final ObjectMapper objectMapper;
+
+    private final Path journalDir;
+    private final boolean fsync;
+    private final int batchSize;
+    private final ArrayBlockingQueue<Punch> queue;
+    private final ScheduledExecutorService flusher;
+
+    // Guards the active segment and the order of journal appends vs. queue drains
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private FileChannel activeSegment;
+    private long activeSegmentNumber;
+    private long activeSegmentPunches;
+
+    // Flusher thread only: punches drained but not yet committed, and the last segment they cover
+    private final List<Punch> pending = new ArrayList<>();
+    private long pendingUpToSegment = -1;
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter rejectedCounter;
+
+    public ClockInWriteBehind(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ReportRollupService reportRollupService,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${clockin.journal.dir:data/clock-in-journal}") String journalDir,
+                              @Value("${clockin.journal.fsync:true}") boolean fsync,
+                              @Value("${clockin.queue-capacity:10000}") int queueCapacity,
+                              @Value("${clockin.batch-size:200}") int batchSize,
+                              @Value("${clockin.flush-interval-ms:500}") long flushIntervalMs) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reportRollupService = reportRollupService;
+        this.objectMapper = objectMapper;
+        this.journalDir = Paths.get(journalDir).toAbsolutePath().normalize();
+        this.fsync = fsync;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.flushTimer = Timer.builder("clockin.flush")
+                .description("Time to write one drained batch of punches")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("clockin.flushed")
+                .description("Punches committed to the database")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("clockin.rejected")
+                .description("Punches refused because the ingestion queue was full")
+                .register(meterRegistry);
+        meterRegistry.gauge("clockin.queue.depth", queue, Collection::size);
+
+        Files.createDirectories(this.journalDir);
+        long lastSegment = replayJournal();
+        openSegment(lastSegment + 1);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clock-in-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Journals and queues a punch. Once this returns the punch survives a crash.
+     *
+     * @throws ClockInRejectedException if the queue is full (the database is down or far behind)
+     */
+    public Punch accept(String employeeId, Long branchId) {
+        Punch punch = new Punch();
+        punch.punchId = UUID.randomUUID().toString();
+        punch.employeeId = employeeId;
+        punch.branchId = branchId;
+        punch.timestamp = LocalDateTime.now();
+
+        journalLock.lock();
+        try {
+            // Only producers add, under this lock, so a free slot checked here is still free below
+            if (queue.remainingCapacity() == 0) {
+                rejectedCounter.increment();
+                throw new ClockInRejectedException();
+            }
+            append(punch);
+            queue.add(punch);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot journal clock-in", e);
+        } finally {
+            journalLock.unlock();
+        }
+
+        if (queue.size() >= batchSize && !flusher.isShutdown()) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the punch is journaled and replayed on the next start
+            }
+        }
+        return punch;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Punches stay pending and journaled; the next run retries them
+            System.out.println("Clock-in flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    // Runs on the flusher thread only
+    private void flush() throws IOException {
+        // A failed batch is retried on its own before anything new is drained, so pending stays bounded
+        if (pending.isEmpty()) {
+            journalLock.lock();
+            try {
+                if (queue.isEmpty()) {
+                    return;
+                }
+                pendingUpToSegment = activeSegmentNumber;
+                queue.drainTo(pending);
+                openSegment(activeSegmentNumber + 1);
+            } finally {
+                journalLock.unlock();
+            }
+        }
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < pending.size(); from += batchSize) {
+                insertChunk(pending.subList(from, Math.min(from + batchSize, pending.size())));
+            }
+        });
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        flushedCounter.increment(pending.size());
+
+        pending.clear();
+        deleteSegmentsUpTo(pendingUpToSegment);
+    }
+
+    // Skips punches already stored (replay after a crash), inserts the rest in one statement, and rolls them up.
+    // Only the flusher writes clock_in rows, so nothing can store a punch between the check and the insert.
+    private void insertChunk(List<Punch> chunk) {
+        String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+        Set<String> stored = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT punch_id FROM clock_in WHERE punch_id IN (" + placeholders + ")",
+                String.class, chunk.stream().map(punch -> punch.punchId).toArray()));
+
+        List<Object> args = new ArrayList<>();
+        Map<Long, Map<LocalDate, Long>> counts = new HashMap<>();
+        for (Punch punch : chunk) {
+            if (stored.contains(punch.punchId)) {
+                continue;
+            }
+            args.add(punch.punchId);
+            args.add(punch.employeeId);
+            args.add(punch.branchId);
+            args.add(Timestamp.valueOf(punch.timestamp));
+            counts.computeIfAbsent(punch.branchId != null ? punch.branchId : ReportRollupService.NO_BRANCH, key -> new HashMap<>())
+                    .merge(punch.timestamp.toLocalDate(), 1L, Long::sum);
+        }
+        if (args.isEmpty()) {
+            return;
+        }
+
+        // Plain INSERT: stored punches were filtered out above, and any other error must fail the batch
+        // rather than be downgraded to a warning and still counted in the rollup
+        String rows = String.join(",", Collections.nCopies(args.size() / 4, "(?, ?, ?, ?)"));
+        jdbcTemplate.update("INSERT INTO clock_in (punch_id, employee_id, branch_id, timestamp) VALUES " + rows,
+                args.toArray());
+
+        counts.forEach((branchId, perDay) -> perDay.forEach((day, count) ->
+                reportRollupService.recordEmployeeCheckIns(branchId, day, count)));
+    }
+
+    private void append(Punch punch) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(punch) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            activeSegment.write(buffer);
+        }
+        if (fsync) {
+            activeSegment.force(false);
+        }
+        activeSegmentPunches++;
+    }
+
+    // Called with journalLock held (or from the constructor); reuses the active segment while it is empty
+    private void openSegment(long number) throws IOException {
+        if (activeSegment != null && activeSegmentPunches == 0) {
+            return;
+        }
+        if (activeSegment != null) {
+            activeSegment.close();
+        }
+        activeSegment = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSegmentNumber = number;
+        activeSegmentPunches = 0;
+    }
+
+    // Loads leftover segments into pending; returns the highest segment number found (0 if none)
+    private long replayJournal() throws IOException {
+        List<Long> segments = listSegments();
+        for (long number : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(segmentPath(number), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        pending.add(objectMapper.readValue(line, Punch.class));
+                    } catch (IOException e) {
+                        // A torn last line from a crash mid-write; that punch was never acknowledged
+                        System.out.println("Skipping unreadable clock-in journal line in segment " + number);
+                    }
+                }
+            }
+        }
+
+        long last = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        pendingUpToSegment = last;
+        if (!pending.isEmpty()) {
+            System.out.println("Replaying " + pending.size() + " clock-ins from the journal");
+        }
+        return last;
+    }
+
+    private void deleteSegmentsUpTo(long number) throws IOException {
+        for (long segment : listSegments()) {
+            if (segment <= number) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(journalDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    numbers.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not ours
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private Path segmentPath(long number) {
+        return journalDir.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    // Drains what is queued before the context closes; anything left is replayed on the next start.
+    // The final flush runs as a task on the flusher itself so it can never overlap an in-flight flush.
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            // Already shut down
+        }
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.out.println("Clock-in flush on shutdown did not finish; the journal will be replayed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journalLock.lock();
+        try {
+            activeSegment.close();
+        } catch (IOException e) {
+            // Nothing more to write
+        } finally {
+            journalLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.jwt.spring_security.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jwt.spring_security.repo.ClockInRepository;
+import com.jwt.spring_security.repo.PatientRepo;
+import com.jwt.spring_security.repo.RenderedServiceRepository;
+import com.jwt.spring_security.repo.VisitRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole tables for analytics as CSV or NDJSON.
+ *
+ * Rows are read through a forward-only query that Connector/J streams row by row (fetch size
+ * Integer.MIN_VALUE, scoped to the export queries) and written as they arrive, so an export of
+ * any length runs in constant memory. Each export holds one connection for
+ * its whole duration, so only a few may run at once (exports.max-concurrent); the rest of the
+ * pool stays available to the clinic.
+ */
+@Service
+public class DataExportService {
+
+    // Rows between flushes of the response, so the client sees progress on long exports
+    private static final int FLUSH_EVERY = 1000;
+
+    public enum Dataset {
+        PATIENTS("patients", List.of("clientID", "patientID", "lastName", "givenName", "middleName", "sex", "age",
+                "birthday", "address", "contactNumber", "religion", "occupation", "status", "branchID")),
+        VISITS("visits", List.of("id", "clientID", "patientID", "branchID", "visitDate", "purpose")),
+        RENDERED_SERVICES("rendered-services", List.of("id", "clientID", "branchID", "renderedAt", "totalCost", "notes")),
+        CLOCK_INS("clock-ins", List.of("id", "employeeId", "branchId", "timestamp"));
+
+        private final String path;
+        private final List<String> columns;
+
+        Dataset(String path, List<String> columns) {
+            this.path = path;
+            this.columns = columns;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public static Dataset fromPath(String path) {
+            for (Dataset dataset : values()) {
+                if (dataset.path.equals(path)) {
+                    return dataset;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export " + path);
+        }
+    }
+
+    public enum Format { CSV, NDJSON }
+
+    @Autowired
+    private PatientRepo patientRepo;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private RenderedServiceRepository renderedServiceRepository;
+
+    @Autowired
+    private ClockInRepository clockInRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Semaphore permits;
+
+    public DataExportService(@Value("${exports.max-concurrent:2}") int maxConcurrent) {
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @param from inclusive, or null; ignored for patients, which have no date
+     * @param to   exclusive, or null
+     */
+    public void export(Dataset dataset, Format format, LocalDate from, LocalDate to, Long branchId,
+                       OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.atStartOfDay() : null;
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        try {
+            Long rows = transaction.execute(status -> {
+                try (Stream<Object[]> stream = open(dataset, fromTime, toTime, branchId)) {
+                    return format == Format.CSV
+                            ? writeCsv(dataset.columns, stream, out)
+                            : writeNdjson(dataset.columns, stream, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            System.out.println("Export " + dataset.path + ": " + rows + " rows in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Stream<Object[]> open(Dataset dataset, LocalDateTime from, LocalDateTime to, Long branchId) {
+        switch (dataset) {
+            case PATIENTS:
+                return patientRepo.streamExportRows(branchId);
+            case VISITS:
+                return visitRepository.streamExportRows(toDate(from), toDate(to), branchId);
+            case RENDERED_SERVICES:
+                return renderedServiceRepository.streamExportRows(from, to, branchId);
+            default:
+                return clockInRepository.streamExportRows(from, to, branchId);
+        }
+    }
+
+    private long writeCsv(List<String> columns, Stream<Object[]> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(String.join(",", columns));
+        writer.write("\r\n");
+
+        long count = 0;
+        for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvField(format(row[i])));
+            }
+            writer.write("\r\n");
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long writeNdjson(List<String> columns, Stream<Object[]> rows, OutputStream out) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setRootValueSeparator(null); // one object per line, newline written below
+
+        long count = 0;
+        for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+            json.writeStartObject();
+            for (int i = 0; i < row.length; i++) {
+                Object value = row[i];
+                json.writeFieldName(columns.get(i));
+                if (value == null) {
+                    json.writeNull();
+                } else if (value instanceof Long || value instanceof Integer) {
+                    json.writeNumber(((Number) value).longValue());
+                } else if (value instanceof Number) {
+                    json.writeNumber(((Number) value).doubleValue());
+                } else {
+                    json.writeString(format(value));
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                json.flush();
+            }
+        }
+        json.close();
+        return count;
+    }
+
+    // ISO-8601 for every temporal type, so both formats read the same in any tool
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toString();
+        }
+        if (value instanceof java.sql.Date) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime().toString();
+        }
+        if (value instanceof TemporalAccessor) {
+            return value.toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return time != null ? Date.from(time.atZone(ZoneId.systemDefault()).toInstant()) : null;
+    }
+
+    public static String fileName(Dataset dataset, Format format, boolean gzip) {
+        return dataset.path + "." + format.name().toLowerCase(Locale.ROOT) + (gzip ? ".gz" : "");
+    }
+}
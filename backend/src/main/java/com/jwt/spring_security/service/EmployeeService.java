@@ -15,6 +15,9 @@ public class EmployeeService {
     @Autowired
     private EmployeeRepo employeeRepo;
 
+    @Autowired
+    private MyUserDetailsService userDetailsService;
+
     // Save new employee with encrypted password
     public Employee save(Employee employee) {
         employee.setPassword(new BCryptPasswordEncoder().encode(employee.getPassword()));
@@ -46,6 +49,7 @@ public class EmployeeService {
         Employee employee = employeeRepo.findByEmployeeID(employeeID);
         if (employee != null) {
             employeeRepo.delete(employee);  // Delete by employee entity
+            userDetailsService.evict(employee.getUsername());
             return true;
         }
         return false;
@@ -58,9 +62,15 @@ public class EmployeeService {
             return null;
         }
 
+        String oldUsername = existingEmployee.getUsername();
         existingEmployee.setUsername(employeeDetails.getUsername());
         existingEmployee.setEmail(employeeDetails.getEmail());
         existingEmployee.setRole(employeeDetails.getRole());
-        return employeeRepo.save(existingEmployee);
+        Employee saved = employeeRepo.save(existingEmployee);
+
+        // Username and role feed the cached principal; evict after the commit so it cannot be re-cached stale
+        userDetailsService.evict(oldUsername);
+        userDetailsService.evict(employeeDetails.getUsername());
+        return saved;
     }
 }
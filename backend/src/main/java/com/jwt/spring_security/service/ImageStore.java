@@ -0,0 +1,455 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.exception.custom.UploadRejectedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed storage for patient photos.
+ *
+ * Each upload is stored once under the SHA-256 of its bytes, sharded as {@code ab/cd/<hash>.<ext>},
+ * so re-uploading the same photo costs no space and a URL always names exactly one content.
+ * A small thumbnail and a web-sized JPEG are generated in the background after upload; until
+ * they exist, requests for them fall back to the original.
+ */
+@Service
+public class ImageStore {
+
+    public static final String URL_PREFIX = "/images/store/";
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+    private static final int SIGNATURE_LENGTH = 8;
+
+    public enum Variant {
+        ORIGINAL(0),
+        THUMB(160),
+        WEB(1024);
+
+        private final int maxDimension;
+
+        Variant(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+
+        public int getMaxDimension() {
+            return maxDimension;
+        }
+    }
+
+    private final Path root;
+    private final long maxUploadBytes;
+    // Decoded size is width * height * 4 bytes whatever the file size, so a small file can still be a bomb
+    private final long maxPixels;
+    private final Path tmp;
+    private final ThreadPoolExecutor variantExecutor;
+
+    // Hashes whose variants are queued or being generated, so repeated requests schedule them once
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ImageStore(@Value("${images.store.dir:images/store}") String rootDir,
+                      @Value("${images.store.variant-threads:2}") int variantThreads,
+                      @Value("${images.upload.max-bytes:10485760}") long maxUploadBytes,
+                      @Value("${images.upload.max-pixels:40000000}") long maxPixels) throws IOException {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.maxUploadBytes = maxUploadBytes;
+        this.maxPixels = maxPixels;
+        this.tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.variantExecutor = new ThreadPoolExecutor(variantThreads, variantThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Streams an upload into the store without buffering it: bytes go through one fixed-size buffer
+     * into a temp file, and are hashed on the way. The size limit and the file signature are checked
+     * while reading, so an oversized or non-image body is rejected before it is fully received.
+     *
+     * @param declaredLength the request's Content-Length, or -1 if unknown
+     * @return the content hash, which is also the image's id
+     * @throws UploadRejectedException if the upload is too large or not a supported image
+     */
+    public String store(ReadableByteChannel source, long declaredLength) throws IOException {
+        if (declaredLength > maxUploadBytes) {
+            throw UploadRejectedException.tooLarge(maxUploadBytes);
+        }
+
+        Path upload = newUploadFile();
+        try {
+            MessageDigest sha256 = sha256();
+            ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+            long total = 0;
+            boolean signatureChecked = false;
+
+            try (FileChannel out = FileChannel.open(upload, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                boolean eof = false;
+                while (!eof) {
+                    eof = source.read(buffer) == -1;
+                    // Hold the first bytes back until there are enough to check the signature
+                    if (!signatureChecked && !eof && buffer.position() < SIGNATURE_LENGTH) {
+                        continue;
+                    }
+                    if (!signatureChecked) {
+                        checkSignature(buffer.array(), buffer.position());
+                        signatureChecked = true;
+                    }
+
+                    buffer.flip();
+                    total += buffer.remaining();
+                    if (total > maxUploadBytes) {
+                        throw UploadRejectedException.tooLarge(maxUploadBytes);
+                    }
+                    sha256.update(buffer.array(), buffer.position(), buffer.remaining());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+
+            return commit(upload, HexFormat.of().formatHex(sha256.digest()));
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    /**
+     * Stores a file the caller has already written into {@link #newUploadFile()} (e.g. a multipart
+     * part moved there with transferTo). The file is only read to hash it, then renamed into place.
+     */
+    public String storeUploadedFile(Path upload) throws IOException {
+        try {
+            long size = Files.size(upload);
+            if (size > maxUploadBytes) {
+                throw UploadRejectedException.tooLarge(maxUploadBytes);
+            }
+
+            MessageDigest sha256 = sha256();
+            ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+            try (FileChannel in = FileChannel.open(upload, StandardOpenOption.READ)) {
+                in.read(buffer, 0);
+                checkSignature(buffer.array(), buffer.position());
+                buffer.clear();
+
+                while (in.read(buffer) != -1) {
+                    sha256.update(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+            }
+
+            return commit(upload, HexFormat.of().formatHex(sha256.digest()));
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    public Path newUploadFile() throws IOException {
+        return Files.createTempFile(tmp, "upload-", ".part");
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public long getMaxUploadBytes() {
+        return maxUploadBytes;
+    }
+
+    // Full check with ImageIO (format and header dimensions), then an atomic rename into the shard;
+    // a duplicate is simply dropped
+    private String commit(Path upload, String hash) throws IOException {
+        String format = detectFormat(upload, maxPixels);
+        if (format == null) {
+            throw UploadRejectedException.unsupportedType();
+        }
+
+        Path target = originalPath(hash, format);
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Same photo uploaded concurrently; the other copy is identical
+            }
+        }
+
+        scheduleVariants(hash);
+        return hash;
+    }
+
+    // JPEG, PNG, GIF and BMP only; anything else is refused from its first bytes
+    private static void checkSignature(byte[] head, int length) {
+        boolean jpeg = length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF;
+        boolean png = length >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G';
+        boolean gif = length >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8';
+        boolean bmp = length >= 2 && head[0] == 'B' && head[1] == 'M';
+        if (!(jpeg || png || gif || bmp)) {
+            throw UploadRejectedException.unsupportedType();
+        }
+    }
+
+    public static String urlFor(String hash) {
+        return URL_PREFIX + hash;
+    }
+
+    /**
+     * Returns the file to serve for the variant, or the original while the variant is still being
+     * generated; null if the hash is unknown.
+     */
+    public Path resolve(String hash, Variant variant) {
+        if (!HASH.matcher(hash).matches()) {
+            return null;
+        }
+        Path original = findOriginal(hash);
+        if (original == null) {
+            return null;
+        }
+        if (variant == Variant.ORIGINAL) {
+            return original;
+        }
+
+        Path variantPath = variantPath(hash, variant);
+        if (Files.exists(variantPath)) {
+            return variantPath;
+        }
+        scheduleVariants(hash);
+        return original;
+    }
+
+    private void scheduleVariants(String hash) {
+        if (!pending.add(hash)) {
+            return;
+        }
+        try {
+            variantExecutor.execute(() -> {
+                try {
+                    generateVariants(hash);
+                } catch (Exception e) {
+                    System.out.println("Failed to generate variants for image " + hash + ": " + e.getMessage());
+                } finally {
+                    pending.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full; the variant is generated the next time it is requested
+            pending.remove(hash);
+        }
+    }
+
+    // The original is decoded once: WEB is resized from it and THUMB from WEB
+    private void generateVariants(String hash) throws IOException {
+        Path original = findOriginal(hash);
+        if (original == null) {
+            return;
+        }
+
+        BufferedImage source = null;
+        for (Variant variant : new Variant[]{Variant.WEB, Variant.THUMB}) {
+            Path target = variantPath(hash, variant);
+            if (Files.exists(target)) {
+                continue;
+            }
+            if (source == null) {
+                source = readForResize(original, Variant.WEB.getMaxDimension() * 2, maxPixels);
+                if (source == null) {
+                    return;
+                }
+            }
+            source = resize(source, variant.getMaxDimension());
+
+            // Write next to the target and rename, so a reader never sees a half-written variant
+            Path part = Files.createTempFile(tmp, hash + "_" + variant.name().toLowerCase(Locale.ROOT), ".part");
+            try {
+                try (OutputStream out = Files.newOutputStream(part)) {
+                    writeJpeg(source, out, variant == Variant.THUMB ? 0.75f : 0.82f);
+                }
+                Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    // Halves repeatedly before the final step; one big bilinear jump from 12MP to 160px aliases badly
+    private static BufferedImage resize(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage current = source;
+        do {
+            int nextWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int nextHeight = Math.max(targetHeight, current.getHeight() / 2);
+            if (current != source && nextWidth == current.getWidth() && nextHeight == current.getHeight()) {
+                break;
+            }
+
+            // JPEG has no alpha, so flatten onto white
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, nextWidth, nextHeight);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > targetWidth || current.getHeight() > targetHeight);
+
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, OutputStream out, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(imageOut);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // Only the header is read; the pixel count is checked before anything is decoded
+    private static String detectFormat(Path file, long maxPixels) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    throw UploadRejectedException.tooManyPixels(maxPixels);
+                }
+                String format = reader.getFormatName().toLowerCase(Locale.ROOT);
+                return format.equals("jpeg") ? "jpg" : format;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decodes every n-th pixel so the longest side is at most about maxDimension; the resize then
+     * never starts from a full 12MP frame. Returns null for files that are not images or whose
+     * header declares more than maxPixels (originals stored before uploads were checked).
+     */
+    private static BufferedImage readForResize(Path file, int maxDimension, long maxPixels) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    System.out.println("Skipping variants for " + file.getFileName() + ": " + width + "x" + height
+                            + " exceeds " + maxPixels + " pixels");
+                    return null;
+                }
+                int step = Math.max(1, Math.max(width, height) / maxDimension);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private Path shard(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+    }
+
+    private Path originalPath(String hash, String extension) {
+        return shard(hash).resolve(hash + "." + extension);
+    }
+
+    private Path variantPath(String hash, Variant variant) {
+        return shard(hash).resolve(hash + "_" + variant.name().toLowerCase(Locale.ROOT) + ".jpg");
+    }
+
+    private Path findOriginal(String hash) {
+        Path directory = shard(hash);
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        try (DirectoryStream<Path> candidates = Files.newDirectoryStream(directory, hash + ".*")) {
+            for (Path candidate : candidates) {
+                return candidate;
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot read image directory " + directory + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        variantExecutor.shutdown();
+    }
+}
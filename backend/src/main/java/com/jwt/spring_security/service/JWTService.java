@@ -6,6 +6,7 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
@@ -28,10 +29,18 @@ import javax.crypto.SecretKey;
 public class JWTService {
 
     private String secretKey = "";
+
+    // Decoded once; the key never changes for the lifetime of the service
+    private final SecretKey signingKey;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     public JWTService() throws NoSuchAlgorithmException {
         KeyGenerator keyGen = KeyGenerator.getInstance("HmacSHA256");
         SecretKey sk = keyGen.generateKey();
         secretKey = Base64.getEncoder().encodeToString(sk.getEncoded());
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
     }
 
     public String generateToken(String username, String roles) {
@@ -50,8 +59,7 @@ public class JWTService {
 
 
     private SecretKey getKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     public String extractUserName(String token) {
@@ -68,9 +76,12 @@ public class JWTService {
         return claimResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
+    // Verifies the signature once per token; later calls are served from the cache until the token expires
+    public Claims extractAllClaims(String token) {
+        return verifiedTokenCache.get(token, this::parseAndVerify);
+    }
 
-        System.out.println("The token is: " + token);
+    private Claims parseAndVerify(String token) {
         return Jwts.parser()
                 .verifyWith(getKey())
                 .build()
@@ -79,8 +90,11 @@ public class JWTService {
     }
 
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateClaims(extractAllClaims(token), userDetails);
+    }
+
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 
     private boolean isTokenExpired(String token) {
@@ -0,0 +1,60 @@
+package com.jwt.spring_security.service;
+
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs a unit of work in its own transaction and re-runs it, in a fresh transaction, when it loses a
+ * lock wait or is chosen as a deadlock victim.
+ *
+ * The retry has to sit outside the transaction: a deadlock rolls back the whole InnoDB transaction and
+ * a lock-wait failure marks it rollback-only, so retrying inside it can only end in
+ * UnexpectedRollbackException. When called inside an existing transaction the work runs once, since
+ * only the outermost caller can start over. After the last attempt the failure propagates and
+ * GlobalAdvancedExceptionHandler answers 503.
+ */
+@Component
+public class LockRetryTemplate {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF_MS = 20;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public LockRetryTemplate(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T execute(TransactionCallback<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(work);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(work);
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                System.out.println("Lock conflict (attempt " + attempt + " of " + MAX_ATTEMPTS + "), retrying: " + e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    // Growing, jittered pause so the competing transaction can finish and two retries do not collide again
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(BACKOFF_MS * attempt + ThreadLocalRandom.current().nextLong(BACKOFF_MS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.exception.custom.LoginThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password verification on a small fixed pool instead of the Tomcat request threads.
+ *
+ * BCrypt is pure CPU, so more threads than cores only adds contention. When the queue is full
+ * (e.g. a whole branch logging in at shift start) new logins are rejected immediately with 429
+ * instead of tying up request threads, and queued logins that waited longer than the client is
+ * likely to wait are dropped without hashing.
+ */
+@Component
+public class LoginHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long maxQueueWaitNanos;
+
+    private final Timer hashTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public LoginHashingExecutor(@Value("${auth.login.threads:0}") int threads,
+                                @Value("${auth.login.queue-capacity:64}") int queueCapacity,
+                                @Value("${auth.login.max-queue-wait-ms:5000}") long maxQueueWaitMs,
+                                MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMs);
+
+        this.hashTimer = Timer.builder("auth.login.hash")
+                .description("Time spent verifying a login (dominated by BCrypt)")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.login.queue.wait")
+                .description("Time a login waited for a hashing thread")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.login.rejected")
+                .description("Logins rejected because the hashing queue was full or too slow")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.login.queue.depth", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("auth.login.active", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    /**
+     * Queues the verification and returns at once; the future completes on a hashing thread.
+     *
+     * @throws LoginThrottledException if the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> verification) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+
+        try {
+            executor.execute(() -> {
+                long waited = System.nanoTime() - queuedAt;
+                queueWaitTimer.record(waited, TimeUnit.NANOSECONDS);
+
+                if (waited > maxQueueWaitNanos) {
+                    rejectedCounter.increment();
+                    result.completeExceptionally(new LoginThrottledException());
+                    return;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    result.complete(verification.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new LoginThrottledException();
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
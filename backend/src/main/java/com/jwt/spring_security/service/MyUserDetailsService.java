@@ -5,18 +5,45 @@ import com.jwt.spring_security.model.Users;
 import com.jwt.spring_security.repo.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 @Service
-public class MyUserDetailsService implements UserDetailsService {
+public class MyUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepo repo;
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return principalCache.get(username, this::loadFromDatabase);
+    }
+
+    // Called by DaoAuthenticationProvider after a successful login when the stored hash
+    // was made with a lower BCrypt strength than Constants.BCRYPT_STRENGTH
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        Users user = repo.findByUsername(userDetails.getUsername());
+        if (user == null) {
+            return userDetails;
+        }
+
+        user.setPassword(newPassword);
+        repo.save(user);
+        principalCache.evict(user.getUsername());
+        return new UserPrincipal(user);
+    }
+
+    public void evict(String username) {
+        principalCache.evict(username);
+    }
+
+    private UserDetails loadFromDatabase(String username) {
         Users user = repo.findByUsername(username);
 
         if (user == null) {
@@ -0,0 +1,320 @@
+package com.jwt.spring_security.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jwt.spring_security.DTO.PatientDTO;
+import com.jwt.spring_security.DTO.PatientImportEventDTO;
+import com.jwt.spring_security.model.Branch;
+import com.jwt.spring_security.model.Patient;
+import com.jwt.spring_security.repo.PatientRepo;
+import com.jwt.spring_security.repo.branchRepo;
+import com.jwt.spring_security.util.CsvReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Imports patients from a CSV or NDJSON stream.
+ *
+ * Rows are read one at a time and persisted in batches, each batch in its own transaction
+ * followed by flush/clear, so only one batch of entities is ever held. A row that fails validation
+ * is reported and skipped; if a batch still fails in the database it is retried row by row so
+ * only the offending rows are lost. Progress and errors are written to the output as NDJSON.
+ */
+@Service
+public class PatientImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private PatientRepo patientRepo;
+
+    @Autowired
+    private branchRepo branchRepo;
+
+    @Autowired
+    private PatientSearchIndex searchIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${patients.import.batch-size:500}")
+    private int batchSize;
+
+    // Past this many failed rows the file is almost certainly malformed; stop instead of reporting every row
+    @Value("${patients.import.max-errors:1000}")
+    private int maxErrors;
+
+    public void importPatients(InputStream in, Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Progress progress = new Progress(out);
+        Map<Long, Boolean> knownBranches = new HashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            RowSource rows = format == Format.CSV ? csvRows(new CsvReader(reader)) : ndjsonRows(reader);
+            List<ParsedRow> batch = new ArrayList<>(batchSize);
+
+            ParsedRow row;
+            while ((row = rows.next()) != null && progress.failed <= maxErrors) {
+                progress.processed++;
+                String error = row.error != null ? row.error : validate(row.dto, knownBranches);
+                if (error != null) {
+                    progress.fail(row.number, error);
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    persistBatch(batch, transaction, progress);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty() && progress.failed <= maxErrors) {
+                persistBatch(batch, transaction, progress);
+            }
+        }
+
+        progress.write(PatientImportEventDTO.progress(progress.failed > maxErrors ? "aborted" : "done",
+                progress.processed, progress.imported, progress.failed));
+        System.out.println("Patient import: " + progress.imported + " imported, " + progress.failed + " failed in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void persistBatch(List<ParsedRow> batch, TransactionTemplate transaction, Progress progress) throws IOException {
+        // patientID is unique: reject rows that clash with stored patients or with each other
+        Set<String> patientIDs = new HashSet<>();
+        for (ParsedRow row : batch) {
+            if (row.dto.getPatientID() != null) {
+                patientIDs.add(row.dto.getPatientID());
+            }
+        }
+        Set<String> taken = patientIDs.isEmpty() ? new HashSet<>() : new HashSet<>(patientRepo.findExistingPatientIDs(patientIDs));
+
+        List<ParsedRow> valid = new ArrayList<>(batch.size());
+        for (ParsedRow row : batch) {
+            String patientID = row.dto.getPatientID();
+            if (patientID != null && !taken.add(patientID)) {
+                progress.fail(row.number, "Duplicate patientID " + patientID);
+            } else {
+                valid.add(row);
+            }
+        }
+
+        try {
+            List<Patient> saved = transaction.execute(status -> persist(valid));
+            indexAll(saved);
+            progress.imported += saved.size();
+        } catch (RuntimeException e) {
+            // One bad row rolls back the whole batch; redo it row by row to isolate it
+            entityManager.clear();
+            for (ParsedRow row : valid) {
+                try {
+                    indexAll(transaction.execute(status -> persist(List.of(row))));
+                    progress.imported++;
+                } catch (RuntimeException rowError) {
+                    entityManager.clear();
+                    progress.fail(row.number, rootMessage(rowError));
+                }
+            }
+        }
+
+        progress.write(PatientImportEventDTO.progress("progress", progress.processed, progress.imported, progress.failed));
+    }
+
+    private List<Patient> persist(List<ParsedRow> rows) {
+        List<Patient> patients = new ArrayList<>(rows.size());
+        for (ParsedRow row : rows) {
+            Patient patient = patientService.toEntity(row.dto);
+            if (row.dto.getBranch() != null) {
+                // Reference only; the branch row is not loaded
+                patient.setBranch(entityManager.getReference(Branch.class, row.dto.getBranch().getBranchID()));
+            }
+            entityManager.persist(patient);
+            patients.add(patient);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return patients;
+    }
+
+    private void indexAll(List<Patient> patients) {
+        for (Patient patient : patients) {
+            searchIndex.index(patient);
+        }
+    }
+
+    private String validate(PatientDTO dto, Map<Long, Boolean> knownBranches) {
+        if (isBlank(dto.getLastName()) || isBlank(dto.getGivenName())) {
+            return "lastName and givenName are required";
+        }
+        if (isBlank(dto.getPatientID())) {
+            dto.setPatientID(null);
+        }
+        if (dto.getBranch() != null) {
+            Long branchId = dto.getBranch().getBranchID();
+            if (branchId == null) {
+                return "branch.branchID is required when a branch is given";
+            }
+            if (!knownBranches.computeIfAbsent(branchId, branchRepo::existsById)) {
+                return "Unknown branch " + branchId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * CSV: the header names PatientDTO properties, with nested objects as dotted paths
+     * (e.g. lastName, branch.branchID, spouse.spouseName). Empty cells are left null.
+     */
+    private RowSource csvRows(CsvReader csv) throws IOException {
+        List<String> header = csv.next();
+        if (header == null) {
+            return () -> null;
+        }
+        List<String[]> paths = new ArrayList<>(header.size());
+        for (String column : header) {
+            paths.add(column.trim().split("\\."));
+        }
+
+        long[] number = {1};
+        return () -> {
+            List<String> record = csv.next();
+            if (record == null) {
+                return null;
+            }
+            number[0]++;
+            if (record.size() != paths.size()) {
+                return ParsedRow.failed(number[0], "Expected " + paths.size() + " columns but found " + record.size());
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < paths.size(); i++) {
+                if (!record.get(i).isEmpty()) {
+                    put(values, paths.get(i), record.get(i));
+                }
+            }
+            try {
+                return ParsedRow.of(number[0], objectMapper.convertValue(values, PatientDTO.class));
+            } catch (IllegalArgumentException e) {
+                return ParsedRow.failed(number[0], "Invalid value: " + firstLine(e.getMessage()));
+            }
+        };
+    }
+
+    // NDJSON: one /addPatient request body per line; blank lines are skipped
+    private RowSource ndjsonRows(BufferedReader reader) {
+        long[] number = {0};
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                number[0]++;
+            } while (line.isBlank());
+
+            try {
+                return ParsedRow.of(number[0], objectMapper.readValue(line, PatientDTO.class));
+            } catch (IOException e) {
+                return ParsedRow.failed(number[0], "Invalid JSON: " + firstLine(e.getMessage()));
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> values, String[] path, String value) {
+        Map<String, Object> target = values;
+        for (int i = 0; i < path.length - 1; i++) {
+            target = (Map<String, Object>) target.computeIfAbsent(path[i], key -> new LinkedHashMap<String, Object>());
+        }
+        target.put(path[path.length - 1], value);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return firstLine(cause.getMessage());
+    }
+
+    private interface RowSource {
+        ParsedRow next() throws IOException;
+    }
+
+    private static final class ParsedRow {
+        private final long number; // line (NDJSON) or record (CSV, header = 1) in the input
+        private final PatientDTO dto;
+        private final String error;
+
+        private ParsedRow(long number, PatientDTO dto, String error) {
+            this.number = number;
+            this.dto = dto;
+            this.error = error;
+        }
+
+        static ParsedRow of(long number, PatientDTO dto) {
+            return new ParsedRow(number, dto, null);
+        }
+
+        static ParsedRow failed(long number, String error) {
+            return new ParsedRow(number, null, error);
+        }
+    }
+
+    private final class Progress {
+        private final OutputStream out;
+        private long processed;
+        private long imported;
+        private long failed;
+
+        Progress(OutputStream out) {
+            this.out = out;
+        }
+
+        void fail(long row, String message) throws IOException {
+            failed++;
+            write(PatientImportEventDTO.error(row, message));
+        }
+
+        void write(PatientImportEventDTO event) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.DTO.ItemDTO;
+import com.jwt.spring_security.DTO.RenderedServiceDTO;
+import com.jwt.spring_security.DTO.ServiceDTO;
+import com.jwt.spring_security.model.Consultation;
+import com.jwt.spring_security.model.MedicalHistory;
+import com.jwt.spring_security.model.Patient;
+import com.jwt.spring_security.model.Pregnancy;
+import com.jwt.spring_security.model.Spouse;
+import com.jwt.spring_security.repo.PatientRepo;
+import com.jwt.spring_security.repo.VisitRepository;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Renders a patient's full record as a PDF written straight to the response.
+ *
+ * The patient and its one-to-ones come from a single fetch-join query; visits and rendered
+ * services are read a page at a time and their table rows are flushed to the document every
+ * {@link #FLUSH_ROWS} rows, so heap use does not grow with the length of the history.
+ */
+@Service
+public class PatientRecordPdfService {
+
+    private static final int HISTORY_PAGE_SIZE = 200;
+    private static final int FLUSH_ROWS = 50;
+
+    // Fonts are resolved once and shared; FontFactory lookups are not free
+    private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
+    private static final Font SECTION_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12);
+    private static final Font LABEL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9);
+    private static final Font VALUE_FONT = FontFactory.getFont(FontFactory.HELVETICA, 9);
+    private static final Font FOOTER_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8);
+
+    private static final float[] FIELD_COLUMNS = {1.2f, 2f, 1.2f, 2f};
+    private static final float[] VISIT_COLUMNS = {1f, 3f};
+    private static final float[] SERVICE_COLUMNS = {1.2f, 2.5f, 2.5f, 1f};
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    @Autowired
+    private PatientRepo patientRepo;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private RenderedServiceHistoryService renderedServiceHistoryService;
+
+    public Patient loadRecord(Long clientID) {
+        return patientRepo.findRecordById(clientID).orElse(null);
+    }
+
+    public void writePdf(OutputStream out, Patient patient) throws IOException {
+        Document document = new Document(PageSize.A4, 36, 36, 48, 48);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            writer.setPageEvent(new RecordFooter(fullName(patient)));
+            document.open();
+
+            document.add(new Paragraph("Patient Record", TITLE_FONT));
+            document.add(new Paragraph(fullName(patient) + "  (" + text(patient.getPatientID()) + ")", SECTION_FONT));
+
+            writePatient(document, patient);
+            writeSpouse(document, patient.getSpouse());
+            writePregnancy(document, patient.getPregnancy());
+            writeConsultation(document, patient.getConsultation());
+            writeMedicalHistory(document, patient.getMedicalHistory());
+            writeVisits(document, patient.getClientID());
+            writeRenderedServices(document, patient.getClientID());
+        } catch (DocumentException e) {
+            throw new IOException("Cannot build patient record", e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private void writePatient(Document document, Patient patient) throws DocumentException {
+        PdfPTable table = section(document, "Patient Information", FIELD_COLUMNS);
+        field(table, "Client ID", patient.getClientID());
+        field(table, "Status", patient.getStatus());
+        field(table, "Sex", patient.getSex());
+        field(table, "Age", patient.getAge());
+        field(table, "Birthday", date(patient.getBirthday()));
+        field(table, "Contact", patient.getContactNumber());
+        field(table, "Religion", patient.getReligion());
+        field(table, "Occupation", patient.getOccupation());
+        field(table, "Address", patient.getAddress());
+        field(table, "Branch", patient.getBranch() != null ? patient.getBranch().getBranchName() : null);
+        table.completeRow();
+        document.add(table);
+    }
+
+    private void writeSpouse(Document document, Spouse spouse) throws DocumentException {
+        if (spouse == null) {
+            return;
+        }
+        PdfPTable table = section(document, "Spouse", FIELD_COLUMNS);
+        field(table, "Name", spouse.getSpouse_name());
+        field(table, "Age", spouse.getSpouse_age());
+        field(table, "Birthday", spouse.getSpouse_birthday());
+        field(table, "Contact", spouse.getSpouse_contact_number());
+        field(table, "Religion", spouse.getSpouse_religion());
+        field(table, "Occupation", spouse.getSpouse_occupation());
+        table.completeRow();
+        document.add(table);
+    }
+
+    private void writePregnancy(Document document, Pregnancy pregnancy) throws DocumentException {
+        if (pregnancy == null) {
+            return;
+        }
+        PdfPTable table = section(document, "Pregnancy", FIELD_COLUMNS);
+        field(table, "Gravida", pregnancy.getGravida());
+        field(table, "Para", pregnancy.getPara());
+        field(table, "Term", pregnancy.getTerm());
+        field(table, "Pre-term", pregnancy.getPre_term());
+        field(table, "Abortion", pregnancy.getAbortion());
+        field(table, "Living", pregnancy.getLiving());
+        field(table, "LMP", date(pregnancy.getLMP()));
+        field(table, "EDC", date(pregnancy.getEDC()));
+        field(table, "IT date", date(pregnancy.getIT_date()));
+        field(table, "Menarche", date(pregnancy.getMenarche()));
+        table.completeRow();
+        document.add(table);
+    }
+
+    private void writeConsultation(Document document, Consultation consultation) throws DocumentException {
+        if (consultation == null) {
+            return;
+        }
+        PdfPTable table = section(document, "Consultation", FIELD_COLUMNS);
+        field(table, "Date", date(consultation.getConsultation_date()));
+        field(table, "AOG", consultation.getAOG());
+        field(table, "BP", consultation.getBP());
+        field(table, "Weight", consultation.getWeight());
+        field(table, "FH", consultation.getFH());
+        field(table, "FHT", consultation.getFHT());
+        field(table, "Remarks", consultation.getRemarks());
+        table.completeRow();
+        document.add(table);
+    }
+
+    private void writeMedicalHistory(Document document, MedicalHistory history) throws DocumentException {
+        if (history == null) {
+            return;
+        }
+        PdfPTable table = section(document, "Medical History", FIELD_COLUMNS);
+        field(table, "Smoking", yesNo(history.isSmoking()));
+        field(table, "Allergies", history.getAllergies());
+        field(table, "Drug intake", yesNo(history.isDrug_intake()));
+        field(table, "Bleeding / anemia", yesNo(history.isBleeding_anemia()));
+        field(table, "Diabetes / congenital anomalies", yesNo(history.isDiabetes_congenital_anomalies()));
+        field(table, "Previous C-section", yesNo(history.isPrevious_C_section()));
+        field(table, "Consecutive miscarriages", yesNo(history.isConsectuive_miscarriages()));
+        field(table, "Post-partum hemorrhage", yesNo(history.isPost_partum_hemorrhage()));
+        field(table, "Forceps delivery", yesNo(history.isForcep_delivery()));
+        field(table, "Hypertension", yesNo(history.isHypertension()));
+        table.completeRow();
+        document.add(table);
+    }
+
+    private void writeVisits(Document document, Long clientID) throws DocumentException {
+        PdfPTable table = streamingSection(document, "Visits", VISIT_COLUMNS, "Date", "Purpose");
+
+        int rows = 0;
+        long after = 0L;
+        List<Object[]> page;
+        do {
+            page = visitRepository.findHistoryRows(clientID, after, PageRequest.of(0, HISTORY_PAGE_SIZE));
+            for (Object[] row : page) {
+                cell(table, date((Date) row[1]));
+                cell(table, text(row[2]));
+                after = (Long) row[0];
+                rows = flushIfDue(document, table, rows + 1);
+            }
+        } while (page.size() == HISTORY_PAGE_SIZE);
+
+        finish(document, table, rows, "No visits recorded.");
+    }
+
+    private void writeRenderedServices(Document document, Long clientID) throws DocumentException {
+        PdfPTable table = streamingSection(document, "Rendered Services", SERVICE_COLUMNS, "Date", "Services", "Items", "Total");
+
+        int rows = 0;
+        long after = 0L;
+        List<RenderedServiceDTO> page;
+        do {
+            page = renderedServiceHistoryService.loadPage(after, null, null, null, clientID);
+            for (RenderedServiceDTO rendered : page) {
+                cell(table, rendered.getRenderedAt() != null ? rendered.getRenderedAt().format(DATE_TIME) : "");
+                cell(table, rendered.getServices().stream().map(ServiceDTO::getServiceName).collect(Collectors.joining(", ")));
+                cell(table, rendered.getItems().stream().map(PatientRecordPdfService::itemLine).collect(Collectors.joining(", ")));
+                cell(table, rendered.getTotalCost() != null ? String.format("%.2f", rendered.getTotalCost()) : "");
+                after = rendered.getId();
+                rows = flushIfDue(document, table, rows + 1);
+            }
+        } while (!page.isEmpty() && page.size() == RenderedServiceHistoryService.PAGE_SIZE);
+
+        finish(document, table, rows, "No rendered services recorded.");
+    }
+
+    // --- layout helpers ---
+
+    private static PdfPTable section(Document document, String title, float[] columns) throws DocumentException {
+        Paragraph heading = new Paragraph(title, SECTION_FONT);
+        heading.setSpacingBefore(12);
+        heading.setSpacingAfter(4);
+        document.add(heading);
+
+        PdfPTable table = new PdfPTable(columns);
+        table.setWidthPercentage(100);
+        return table;
+    }
+
+    // Incomplete table: rows already added are written out on every document.add and then released
+    private static PdfPTable streamingSection(Document document, String title, float[] columns, String... headers) throws DocumentException {
+        PdfPTable table = section(document, title, columns);
+        table.setComplete(false);
+        table.setHeaderRows(1);
+        for (String header : headers) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, LABEL_FONT));
+            cell.setGrayFill(0.9f);
+            table.addCell(cell);
+        }
+        return table;
+    }
+
+    private static int flushIfDue(Document document, PdfPTable table, int rows) throws DocumentException {
+        if (rows % FLUSH_ROWS == 0) {
+            document.add(table);
+        }
+        return rows;
+    }
+
+    private static void finish(Document document, PdfPTable table, int rows, String emptyMessage) throws DocumentException {
+        table.setComplete(true);
+        if (rows == 0) {
+            PdfPCell cell = new PdfPCell(new Phrase(emptyMessage, VALUE_FONT));
+            cell.setColspan(table.getNumberOfColumns());
+            table.addCell(cell);
+        }
+        document.add(table);
+    }
+
+    private static void field(PdfPTable table, String label, Object value) {
+        PdfPCell labelCell = new PdfPCell(new Phrase(label, LABEL_FONT));
+        labelCell.setGrayFill(0.95f);
+        table.addCell(labelCell);
+        cell(table, text(value));
+    }
+
+    private static void cell(PdfPTable table, String value) {
+        table.addCell(new PdfPCell(new Phrase(value, VALUE_FONT)));
+    }
+
+    private static String itemLine(ItemDTO item) {
+        return item.getItemName() + (item.getItemQuantity() != null ? " x" + item.getItemQuantity() : "");
+    }
+
+    private static String fullName(Patient patient) {
+        return (text(patient.getLastName()) + ", " + text(patient.getGivenName()) + " " + text(patient.getMiddleName())).trim();
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    private static String yesNo(boolean value) {
+        return value ? "Yes" : "No";
+    }
+
+    // SimpleDateFormat is not thread-safe, so each call gets its own
+    private static String date(Date date) {
+        return date != null ? new SimpleDateFormat("yyyy-MM-dd").format(date) : "";
+    }
+
+    // Patient name and page number on every page
+    private static class RecordFooter extends PdfPageEventHelper {
+        private final String patientName;
+
+        RecordFooter(String patientName) {
+            this.patientName = patientName;
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            ColumnText.showTextAligned(writer.getDirectContent(), Element.ALIGN_LEFT,
+                    new Phrase(patientName, FOOTER_FONT), document.left(), document.bottom() - 20, 0);
+            ColumnText.showTextAligned(writer.getDirectContent(), Element.ALIGN_RIGHT,
+                    new Phrase("Page " + writer.getPageNumber(), FOOTER_FONT), document.right(), document.bottom() - 20, 0);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.DTO.PatientSummaryDTO;
+import com.jwt.spring_security.model.Patient;
+import com.jwt.spring_security.repo.PatientRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over patient names, patientID and contact number.
+ *
+ * Every query token must match some indexed term of the patient, either exactly, as a prefix,
+ * or (for alphabetic tokens of 4+ characters) within a small edit distance. Results are ranked
+ * by how strongly each token matched. Built once at startup and kept current by PatientService and
+ * PatientController on every patient write.
+ */
+@Component
+public class PatientSearchIndex {
+
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int FUZZY_SCORE = 1;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private PatientRepo patientRepo;
+
+    // term -> clientIDs of patients having that term
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+
+    // "<first char><length>" -> alphabetic terms of that shape; the fuzzy pass only reads the few buckets
+    // a token can reach instead of every term sharing its first letter. Digit-bearing terms (phone
+    // numbers, patient IDs) are never fuzzy-matched, so they are left out.
+    private final Map<String, Set<String>> fuzzyBuckets = new ConcurrentHashMap<>();
+
+    // clientID -> what was indexed for that patient, so updates can remove stale terms
+    private final Map<Long, IndexedPatient> patients = new ConcurrentHashMap<>();
+
+    private static class IndexedPatient {
+        final Set<String> terms;
+        final String status;
+        final String sortKey;
+
+        IndexedPatient(Set<String> terms, String status, String sortKey) {
+            this.terms = terms;
+            this.status = status;
+            this.sortKey = sortKey;
+        }
+    }
+
+    private static final IndexedPatient EMPTY = new IndexedPatient(Collections.emptySet(), null, "");
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        long cursor = 0L;
+        List<PatientSummaryDTO> batch;
+        do {
+            batch = patientRepo.findSummariesAfter(cursor, null, null, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            for (PatientSummaryDTO patient : batch) {
+                index(patient.getClientID(), patient.getLastName(), patient.getGivenName(), patient.getMiddleName(),
+                        patient.getPatientID(), patient.getContactNumber(), patient.getStatus());
+                cursor = patient.getClientID();
+            }
+        } while (batch.size() == REBUILD_BATCH_SIZE);
+        System.out.println("Patient search index built: " + patients.size() + " patients, "
+                + postings.size() + " terms in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void index(Patient patient) {
+        index(patient.getClientID(), patient.getLastName(), patient.getGivenName(), patient.getMiddleName(),
+                patient.getPatientID(), patient.getContactNumber(), patient.getStatus());
+    }
+
+    public synchronized void index(Long clientID, String lastName, String givenName, String middleName,
+                                   String patientID, String contactNumber, String status) {
+        if (clientID == null) {
+            return;
+        }
+        remove(clientID);
+
+        Set<String> terms = new HashSet<>();
+        terms.addAll(tokenize(lastName));
+        terms.addAll(tokenize(givenName));
+        terms.addAll(tokenize(middleName));
+        terms.addAll(tokenize(patientID));
+        String compactPatientID = normalize(patientID).replaceAll("[^a-z0-9]", "");
+        if (!compactPatientID.isEmpty()) {
+            terms.add(compactPatientID);
+        }
+        String digits = contactNumber == null ? "" : contactNumber.replaceAll("\\D", "");
+        if (!digits.isEmpty()) {
+            terms.add(digits);
+        }
+
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> {
+                if (isFuzzyCandidate(t)) {
+                    fuzzyBuckets.computeIfAbsent(bucketKey(t.charAt(0), t.length()), k -> ConcurrentHashMap.newKeySet()).add(t);
+                }
+                return ConcurrentHashMap.newKeySet();
+            }).add(clientID);
+        }
+        String sortKey = normalize(lastName) + " " + normalize(givenName);
+        patients.put(clientID, new IndexedPatient(terms, status, sortKey));
+    }
+
+    public synchronized void remove(Long clientID) {
+        IndexedPatient previous = patients.remove(clientID);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            postings.computeIfPresent(term, (t, ids) -> {
+                ids.remove(clientID);
+                if (!ids.isEmpty()) {
+                    return ids;
+                }
+                if (isFuzzyCandidate(t)) {
+                    fuzzyBuckets.computeIfPresent(bucketKey(t.charAt(0), t.length()), (k, bucket) -> {
+                        bucket.remove(t);
+                        return bucket.isEmpty() ? null : bucket;
+                    });
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Returns one page of matching clientIDs, best match first.
+     *
+     * @param status only patients with this status are returned; null returns any status
+     */
+    public List<Long> search(String query, String status, int page, int size) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String token : queryTokens) {
+            Map<Long, Integer> tokenScores = matchToken(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                // Every token has to match: keep the intersection and add up the scores
+                Map<Long, Integer> merged = new HashMap<>();
+                for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                    Integer tokenScore = tokenScores.get(entry.getKey());
+                    if (tokenScore != null) {
+                        merged.put(entry.getKey(), entry.getValue() + tokenScore);
+                    }
+                }
+                scores = merged;
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        // Only the first (page + 1) * size matches are needed: keep them in a bounded heap whose head is
+        // the worst one kept, instead of sorting every match
+        int limit = (int) Math.min((long) (page + 1) * size, scores.size());
+        if (limit <= (long) page * size) {
+            return Collections.emptyList();
+        }
+        Comparator<Map.Entry<Long, Integer>> ranking = Comparator
+                .<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                .thenComparing(entry -> patients.getOrDefault(entry.getKey(), EMPTY).sortKey)
+                .thenComparing(Map.Entry::getKey);
+        PriorityQueue<Map.Entry<Long, Integer>> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            IndexedPatient patient = patients.get(entry.getKey());
+            if (patient == null || (status != null && !status.equalsIgnoreCase(patient.status))) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.add(entry);
+            } else if (ranking.compare(entry, top.peek()) < 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        int from = Math.min(page * size, ranked.size());
+        List<Long> result = new ArrayList<>(ranked.size() - from);
+        for (Map.Entry<Long, Integer> entry : ranked.subList(from, ranked.size())) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    public int size() {
+        return patients.size();
+    }
+
+    // Best score per patient for a single query token
+    private Map<Long, Integer> matchToken(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+
+        for (Map.Entry<String, Set<Long>> entry : postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet()) {
+            int score = entry.getKey().equals(token) ? EXACT_SCORE : PREFIX_SCORE;
+            for (Long clientID : entry.getValue()) {
+                scores.merge(clientID, score, Math::max);
+            }
+        }
+
+        int maxEdits = !isFuzzyCandidate(token) ? 0 : token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+        // Only terms sharing the first character and within maxEdits of the token's length can match
+        for (int length = token.length() - maxEdits; maxEdits > 0 && length <= token.length() + maxEdits; length++) {
+            Set<String> bucket = fuzzyBuckets.get(bucketKey(token.charAt(0), length));
+            if (bucket == null) {
+                continue;
+            }
+            for (String term : bucket) {
+                if (term.startsWith(token) || !withinEditDistance(token, term, maxEdits)) {
+                    continue;
+                }
+                Set<Long> clientIDs = postings.get(term);
+                if (clientIDs != null) {
+                    for (Long clientID : clientIDs) {
+                        scores.merge(clientID, FUZZY_SCORE, Math::max);
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    // Typos are only tolerated in words; numbers and IDs match exactly or by prefix
+    private static boolean isFuzzyCandidate(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isDigit(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String bucketKey(char first, int length) {
+        return first + Integer.toString(length);
+    }
+
+    // Levenshtein distance with an early exit once every cell in a row exceeds maxEdits
+    static boolean withinEditDistance(String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+
+    static List<String> tokenize(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split("[^a-z0-9]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Lower-cases and strips accents so "Peña" and "pena" index the same way
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .trim();
+    }
+}
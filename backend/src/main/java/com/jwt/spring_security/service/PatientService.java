@@ -4,27 +4,63 @@ import com.jwt.spring_security.DTO.*;
 import com.jwt.spring_security.model.*;
 import com.jwt.spring_security.repo.PatientRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class PatientService {
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private PatientRepo patientRepo;
 
+    @Autowired
+    private PatientSearchIndex searchIndex;
+
     public boolean deleteByPatientID(Long id) {
         if (patientRepo.existsById(id)) {
             patientRepo.deleteById(id);
+            searchIndex.remove(id);
             return true;
         }
         return false;
     }
 
 
+    // Primary-key check only; avoids loading the patient and its one-to-one associations
+    public boolean existsById(Long patientId) {
+        return patientRepo.existsById(patientId);
+    }
+
     public Patient findById(Long patientId) {
         return patientRepo.findById(patientId).orElse(null);
     }
 
+    public KeysetPageDTO<PatientSummaryDTO> listPatients(Long after, int size, Long branchId, String status, boolean includeTotal) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long cursor = after != null ? after : 0L;
+
+        List<PatientSummaryDTO> fetched = patientRepo.findSummariesAfter(cursor, branchId, status, PageRequest.of(0, pageSize + 1));
+        Long total = includeTotal ? patientRepo.countSummaries(branchId, status) : null;
+
+        return KeysetPageDTO.of(fetched, pageSize, PatientSummaryDTO::getClientID, total);
+    }
+
     public Long addPatient(PatientDTO patientDTO) {
+        Patient patient = toEntity(patientDTO);
+
+        // Save the patient entity (cascades will handle related entities)
+        Patient savedPatient = patientRepo.save(patient);
+        searchIndex.index(savedPatient);
+
+        // Return the clientID of the saved patient
+        return savedPatient.getClientID();
+    }
+
+    // Builds the unsaved patient graph; shared by addPatient and the bulk import
+    public Patient toEntity(PatientDTO patientDTO) {
         // Map Patient fields
         Patient patient = new Patient();
         patient.setPatientID(patientDTO.getPatientID());
@@ -113,10 +149,6 @@ public class PatientService {
             patient.setMedicalHistory(medicalHistory);
         }
 
-        // Save the patient entity (cascades will handle related entities)
-        Patient savedPatient = patientRepo.save(patient);
-
-        // Return the clientID of the saved patient
-        return savedPatient.getClientID();
+        return patient;
     }
 }
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.jwt.spring_security.service;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.jwt.spring_security.DTO.PatientSummaryDTO;
+import com.jwt.spring_security.repo.PatientRepo;
+import com.jwt.spring_security.util.QRCodeGenerator;
+import com.jwt.spring_security.util.QRCodePngEncoder;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.Image;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Prints QR badges for many patients as one document.
+ *
+ * Badges are produced one page (PDF) or one row of tiles (PNG, a single page) at a time: the codes of that
+ * page are rendered in parallel, written to the response, and dropped before the next page
+ * starts, so memory stays flat no matter how many badges are printed.
+ */
+@Service
+public class QRBadgeSheetService {
+
+    public static final int MAX_BADGES = 5000;
+
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    // PDF: A4, 3 x 4 badges per page
+    private static final int PDF_COLUMNS = 3;
+    private static final int PDF_ROWS = 4;
+    private static final float PDF_BADGE_HEIGHT = 190f;
+    private static final float PDF_QR_SIZE = 140f;
+
+    // PNG: one printable page of 4 x 5 badges (1216 x 1700 px, A4 proportions); tiles are a multiple
+    // of 8 px wide so each one starts on a byte boundary. Larger batches must use the PDF format.
+    private static final int PNG_COLUMNS = 4;
+    private static final int PNG_ROWS = 5;
+    public static final int PNG_MAX_BADGES = PNG_COLUMNS * PNG_ROWS;
+    private static final int PNG_TILE_WIDTH = 304;
+    private static final int PNG_LABEL_HEIGHT = 40;
+    private static final int PNG_TILE_HEIGHT = QRCodeGenerator.DEFAULT_SIZE + PNG_LABEL_HEIGHT;
+
+    @Autowired
+    private PatientRepo patientRepo;
+
+    @Autowired
+    private QRCodeService qrCodeService;
+
+    /**
+     * Resolves the patients to print, ordered by clientID. Explicit clientIDs win over the branch filter;
+     * unknown IDs are skipped.
+     */
+    public List<PatientSummaryDTO> resolvePatients(List<Long> clientIDs, Long branchId) {
+        List<PatientSummaryDTO> patients = new ArrayList<>();
+
+        if (clientIDs != null && !clientIDs.isEmpty()) {
+            List<Long> ids = new ArrayList<>(new TreeSet<>(clientIDs));
+            if (ids.size() > MAX_BADGES) {
+                throw new IllegalArgumentException("At most " + MAX_BADGES + " badges can be printed at once");
+            }
+            for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+                patients.addAll(patientRepo.findSummariesByIds(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size()))));
+            }
+        } else if (branchId != null) {
+            long cursor = 0L;
+            List<PatientSummaryDTO> batch;
+            do {
+                batch = patientRepo.findSummariesAfter(cursor, branchId, null, PageRequest.of(0, ID_CHUNK_SIZE));
+                patients.addAll(batch);
+                if (patients.size() > MAX_BADGES) {
+                    throw new IllegalArgumentException("Branch has more than " + MAX_BADGES + " patients; print it in parts by clientIDs");
+                }
+                if (!batch.isEmpty()) {
+                    cursor = batch.get(batch.size() - 1).getClientID();
+                }
+            } while (batch.size() == ID_CHUNK_SIZE);
+        } else {
+            throw new IllegalArgumentException("Either clientIDs or branchId is required");
+        }
+        return patients;
+    }
+
+    public void writePdf(OutputStream out, List<PatientSummaryDTO> patients) throws IOException {
+        Document document = new Document(PageSize.A4, 36, 36, 36, 36);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+
+            Font nameFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+            Font idFont = FontFactory.getFont(FontFactory.HELVETICA, 9);
+            int perPage = PDF_COLUMNS * PDF_ROWS;
+
+            for (int from = 0; from < patients.size(); from += perPage) {
+                List<PatientSummaryDTO> page = patients.subList(from, Math.min(from + perPage, patients.size()));
+                List<byte[]> pngs = page.parallelStream()
+                        .map(patient -> qrCodeService.renderPng(String.valueOf(patient.getClientID()),
+                                QRCodeGenerator.DEFAULT_SIZE, ErrorCorrectionLevel.L).getBytes())
+                        .toList();
+
+                PdfPTable table = new PdfPTable(PDF_COLUMNS);
+                table.setWidthPercentage(100);
+                for (int i = 0; i < page.size(); i++) {
+                    Image qr = Image.getInstance(pngs.get(i));
+                    qr.scaleToFit(PDF_QR_SIZE, PDF_QR_SIZE);
+                    qr.setAlignment(Element.ALIGN_CENTER);
+
+                    Paragraph name = new Paragraph(displayName(page.get(i)), nameFont);
+                    name.setAlignment(Element.ALIGN_CENTER);
+                    Paragraph id = new Paragraph(Objects.toString(page.get(i).getPatientID(), ""), idFont);
+                    id.setAlignment(Element.ALIGN_CENTER);
+
+                    PdfPCell cell = new PdfPCell();
+                    cell.setFixedHeight(PDF_BADGE_HEIGHT);
+                    cell.addElement(qr);
+                    cell.addElement(name);
+                    cell.addElement(id);
+                    table.addCell(cell);
+                }
+                table.completeRow();
+
+                document.add(table);
+                document.newPage();
+                out.flush();
+            }
+        } catch (DocumentException e) {
+            throw new IOException("Cannot build badge sheet", e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    // Called before the response starts, so an oversized PNG request is still a clean 400
+    public void checkPngSheet(List<PatientSummaryDTO> patients) {
+        if (patients.size() > PNG_MAX_BADGES) {
+            throw new IllegalArgumentException("A PNG sheet holds at most " + PNG_MAX_BADGES
+                    + " badges (one page); use format=pdf for " + patients.size());
+        }
+    }
+
+    public void writePng(OutputStream out, List<PatientSummaryDTO> patients) throws IOException {
+        checkPngSheet(patients);
+        int width = PNG_COLUMNS * PNG_TILE_WIDTH;
+        int tileRows = (patients.size() + PNG_COLUMNS - 1) / PNG_COLUMNS;
+
+        try (QRCodePngEncoder.StreamingWriter writer =
+                     new QRCodePngEncoder.StreamingWriter(out, width, tileRows * PNG_TILE_HEIGHT)) {
+            for (int from = 0; from < patients.size(); from += PNG_COLUMNS) {
+                List<PatientSummaryDTO> row = patients.subList(from, Math.min(from + PNG_COLUMNS, patients.size()));
+                List<BitMatrix> codes = row.parallelStream().map(QRBadgeSheetService::encode).toList();
+
+                BufferedImage strip = new BufferedImage(width, PNG_TILE_HEIGHT, BufferedImage.TYPE_BYTE_BINARY);
+                byte[] pixels = ((DataBufferByte) strip.getRaster().getDataBuffer()).getData();
+                int stride = ((MultiPixelPackedSampleModel) strip.getSampleModel()).getScanlineStride();
+                Arrays.fill(pixels, (byte) 0xFF); // all white
+
+                for (int column = 0; column < codes.size(); column++) {
+                    blit(codes.get(column), pixels, stride, column * PNG_TILE_WIDTH / 8);
+                }
+
+                Graphics2D graphics = strip.createGraphics();
+                try {
+                    graphics.setColor(Color.BLACK);
+                    graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+                    for (int column = 0; column < row.size(); column++) {
+                        graphics.drawString(displayName(row.get(column)), column * PNG_TILE_WIDTH + 16,
+                                QRCodeGenerator.DEFAULT_SIZE + 14);
+                        graphics.drawString(Objects.toString(row.get(column).getPatientID(), ""), column * PNG_TILE_WIDTH + 16,
+                                QRCodeGenerator.DEFAULT_SIZE + 30);
+                    }
+                } finally {
+                    graphics.dispose();
+                }
+
+                writer.writeRows(pixels, 0, PNG_TILE_HEIGHT, stride);
+                out.flush();
+            }
+            writer.finish();
+        }
+    }
+
+    private static BitMatrix encode(PatientSummaryDTO patient) {
+        try {
+            return QRCodeGenerator.generateQRCodeMatrix(String.valueOf(patient.getClientID()),
+                    QRCodeGenerator.DEFAULT_SIZE, ErrorCorrectionLevel.L);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot encode QR code for patient " + patient.getClientID(), e);
+        }
+    }
+
+    // Clears the bit of every dark module; the tile starts on byte xByte of each row
+    private static void blit(BitMatrix code, byte[] pixels, int stride, int xByte) {
+        for (int y = 0; y < code.getHeight(); y++) {
+            int rowStart = y * stride + xByte;
+            for (int x = 0; x < code.getWidth(); x++) {
+                if (code.get(x, y)) {
+                    pixels[rowStart + (x >> 3)] &= (byte) ~(0x80 >>> (x & 7));
+                }
+            }
+        }
+    }
+
+    private static String displayName(PatientSummaryDTO patient) {
+        String lastName = Objects.toString(patient.getLastName(), "");
+        String givenName = Objects.toString(patient.getGivenName(), "");
+        return givenName.isEmpty() ? lastName : lastName + ", " + givenName;
+    }
+}
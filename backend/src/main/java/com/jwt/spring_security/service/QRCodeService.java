@@ -1,35 +1,232 @@
 package com.jwt.spring_security.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.zxing.*;
 import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.GlobalHistogramBinarizer;
 import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.jwt.spring_security.exception.custom.QRDecodeRejectedException;
 import com.jwt.spring_security.util.QRCodeGenerator;
+import com.jwt.spring_security.util.QRCodePngEncoder;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class QRCodeService {
 
+    // Rendered PNGs are a pure function of (content, size, error correction), so they can be kept indefinitely
+    private final Cache<String, RenderedPng> pngCache;
+
+    // Scans are CPU-heavy image work; a small pool with a short queue keeps them from starving the API
+    private final ThreadPoolExecutor decodeExecutor;
+    private final int decodeMaxDimension;
+    private final long decodeTimeoutMs;
+    private final Timer decodeTimer;
+    private final Timer decodeQueueWaitTimer;
+
+    public QRCodeService(@Value("${qr.cache.max-bytes:16777216}") long maxBytes,
+                         @Value("${qr.decode.threads:2}") int decodeThreads,
+                         @Value("${qr.decode.queue-capacity:16}") int decodeQueueCapacity,
+                         @Value("${qr.decode.timeout-ms:3000}") long decodeTimeoutMs,
+                         @Value("${qr.decode.max-dimension:1600}") int decodeMaxDimension,
+                         MeterRegistry meterRegistry) {
+        this.pngCache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, RenderedPng>weigher((key, png) -> png.getBytes().length + key.length())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, pngCache, "qr.png");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.decodeExecutor = new ThreadPoolExecutor(decodeThreads, decodeThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(decodeQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-decode-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.decodeMaxDimension = decodeMaxDimension;
+        this.decodeTimeoutMs = decodeTimeoutMs;
+        this.decodeTimer = Timer.builder("qr.decode")
+                .description("Time spent decoding an uploaded QR image")
+                .register(meterRegistry);
+        this.decodeQueueWaitTimer = Timer.builder("qr.decode.queue.wait")
+                .description("Time a scan waited for a decode thread")
+                .register(meterRegistry);
+        meterRegistry.gauge("qr.decode.queue.depth", decodeExecutor, pool -> pool.getQueue().size());
+    }
+
+    public static class RenderedPng {
+        private final byte[] bytes;
+        private final String etag;
+
+        RenderedPng(byte[] bytes, String etag) {
+            this.bytes = bytes;
+            this.etag = etag;
+        }
+
+        public byte[] getBytes() { return bytes; }
+        public String getEtag() { return etag; }
+    }
+
+    /**
+     * Returns the QR code as PNG bytes, rendering it only on the first request for this
+     * content, size and error-correction level.
+     */
+    public RenderedPng renderPng(String content, int size, ErrorCorrectionLevel errorCorrection) {
+        String key = errorCorrection + ":" + size + ":" + content;
+        return pngCache.get(key, k -> {
+            try {
+                byte[] png = QRCodePngEncoder.encode(QRCodeGenerator.generateQRCodeMatrix(content, size, errorCorrection));
+                return new RenderedPng(png, etagOf(png));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Cannot encode QR code: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static String etagOf(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public BufferedImage generateQRCode(String text) throws Exception {
         return QRCodeGenerator.generateQRCodeImage(text);
     }
 
-    public String decodeQRCode(File qrCodeImage) throws Exception {
-        BufferedImage bufferedImage = ImageIO.read(qrCodeImage);
+    /**
+     * Decodes on the bounded decode pool. qr.decode.timeout-ms counts from submission, so time spent
+     * queued is included. At the deadline the future fails with QRDecodeRejectedException; a scan still
+     * queued is then skipped, and one being decoded stops before its next binarizer pass.
+     *
+     * @throws QRDecodeRejectedException if the decode queue is full
+     */
+    public CompletableFuture<String> decodeQRCodeAsync(Callable<InputStream> image) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+
+        try {
+            decodeExecutor.execute(() -> {
+                long start = System.nanoTime();
+                decodeQueueWaitTimer.record(start - queuedAt, TimeUnit.NANOSECONDS);
+                if (result.isDone()) {
+                    // Timed out while queued; nobody is waiting for this scan any more
+                    return;
+                }
+                try (InputStream in = image.call()) {
+                    result.complete(decodeQRCode(in, result::isDone));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw QRDecodeRejectedException.busy();
+        }
+
+        CompletableFuture.delayedExecutor(decodeTimeoutMs, TimeUnit.MILLISECONDS)
+                .execute(() -> result.completeExceptionally(QRDecodeRejectedException.timedOut()));
+        return result;
+    }
+
+    /**
+     * Decodes a QR code straight from an image stream. Large photos are subsampled while they are
+     * read, so a 12MP camera frame never exists in memory at full resolution.
+     *
+     * @return the decoded text, or null if the stream is not an image or holds no QR code
+     */
+    public String decodeQRCode(InputStream in) throws IOException {
+        return decodeQRCode(in, () -> false);
+    }
+
+    // abandoned is polled between passes; once it is true the remaining passes are skipped
+    private String decodeQRCode(InputStream in, BooleanSupplier abandoned) throws IOException {
+        BufferedImage bufferedImage = readDownsampled(in, decodeMaxDimension);
+        if (bufferedImage == null || abandoned.getAsBoolean()) {
+            return null;
+        }
         LuminanceSource source = new BufferedImageLuminanceSource(bufferedImage);
-        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
 
-        Result result;
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, List.of(BarcodeFormat.QR_CODE));
+
+        // Cheapest first: one global threshold works for most badge scans; local thresholds and
+        // TRY_HARDER are only paid for on shadowed or low-contrast photos
+        String decoded = tryDecode(new GlobalHistogramBinarizer(source), hints);
+        if (decoded == null && !abandoned.getAsBoolean()) {
+            decoded = tryDecode(new HybridBinarizer(source), hints);
+        }
+        if (decoded == null && !abandoned.getAsBoolean()) {
+            hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+            decoded = tryDecode(new HybridBinarizer(source), hints);
+        }
+        return decoded;
+    }
+
+    private static String tryDecode(Binarizer binarizer, Map<DecodeHintType, Object> hints) {
         try {
-            result = new MultiFormatReader().decode(bitmap);
-            return result.getText();
-        } catch (NotFoundException e) {
-            // No QR code found in the image
+            return new QRCodeReader().decode(new BinaryBitmap(binarizer), hints).getText();
+        } catch (NotFoundException | ChecksumException | FormatException e) {
+            // No readable QR code with this binarizer
             return null;
         }
     }
+
+    // Reads every n-th pixel so the longest side is at most maxDimension
+    private static BufferedImage readDownsampled(InputStream in, int maxDimension) throws IOException {
+        // Memory-backed stream: ImageIO's default cache would spill the upload to a temp file
+        try (ImageInputStream imageStream = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, (longest + maxDimension - 1) / maxDimension);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        decodeExecutor.shutdown();
+    }
 }
@@ -0,0 +1,102 @@
+package com.jwt.spring_security.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jwt.spring_security.DTO.ItemDTO;
+import com.jwt.spring_security.DTO.RenderedServiceDTO;
+import com.jwt.spring_security.DTO.ServiceDTO;
+import com.jwt.spring_security.repo.RenderedServiceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads rendered-service history as DTOs, one page at a time.
+ * Each page costs three queries (headers, services, items) regardless of how many rows it holds,
+ * and only one page is in memory while the response is being written.
+ */
+@Service
+public class RenderedServiceHistoryService {
+
+    public static final int PAGE_SIZE = 500;
+
+    @Autowired
+    private RenderedServiceRepository renderedServiceRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public List<RenderedServiceDTO> loadPage(long after, LocalDateTime from, LocalDateTime to, Long branchId) {
+        return loadPage(after, from, to, branchId, null);
+    }
+
+    public List<RenderedServiceDTO> loadPage(long after, LocalDateTime from, LocalDateTime to, Long branchId, Long patientId) {
+        List<RenderedServiceDTO> page = renderedServiceRepository.findDtosAfter(after, from, to, branchId, patientId,
+                PageRequest.of(0, PAGE_SIZE));
+        if (page.isEmpty()) {
+            return page;
+        }
+
+        Map<Long, RenderedServiceDTO> byId = new HashMap<>();
+        for (RenderedServiceDTO dto : page) {
+            dto.setServices(new ArrayList<>());
+            dto.setItems(new ArrayList<>());
+            byId.put(dto.getId(), dto);
+        }
+
+        for (Object[] row : renderedServiceRepository.findServiceRows(byId.keySet())) {
+            ServiceDTO sdto = new ServiceDTO();
+            sdto.setServiceID((Long) row[1]);
+            sdto.setServiceName((String) row[2]);
+            sdto.setServiceDescription((String) row[3]);
+            sdto.setServicePrice((Double) row[4]);
+            byId.get((Long) row[0]).getServices().add(sdto);
+        }
+
+        for (Object[] row : renderedServiceRepository.findItemRows(byId.keySet())) {
+            ItemDTO idto = new ItemDTO();
+            idto.setItemID((Long) row[1]);
+            idto.setItemName((String) row[2]);
+            idto.setItemQuantity((Long) row[3]);
+            idto.setItemPrice((Double) row[4]);
+            byId.get((Long) row[0]).getItems().add(idto);
+        }
+
+        return page;
+    }
+
+    /**
+     * Writes every matching rendered service as one JSON array, flushing after each page.
+     *
+     * @param firstPage page already loaded by the caller (e.g. to answer 404 before streaming starts)
+     */
+    public void writeJson(OutputStream out, List<RenderedServiceDTO> firstPage,
+                          LocalDateTime from, LocalDateTime to, Long branchId) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+
+            List<RenderedServiceDTO> page = firstPage;
+            while (!page.isEmpty()) {
+                for (RenderedServiceDTO dto : page) {
+                    generator.writeObject(dto);
+                }
+                generator.flush();
+
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                page = loadPage(page.get(page.size() - 1).getId(), from, to, branchId);
+            }
+
+            generator.writeEndArray();
+        }
+    }
+}
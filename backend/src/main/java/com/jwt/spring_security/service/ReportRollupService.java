@@ -0,0 +1,89 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.model.Branch;
+import com.jwt.spring_security.repo.reportRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the per-day, per-branch rows in {@code reports} current as events happen, so the
+ * dashboard reads pre-aggregated rows instead of grouping the source tables on every load.
+ * Each event is a single upsert that joins the caller's transaction when there is one.
+ */
+@Service
+public class ReportRollupService {
+
+    // Rollup key for events that carry no branch
+    public static final long NO_BRANCH = 0L;
+
+    @Autowired
+    private reportRepo reportRepository;
+
+    @Transactional
+    public void recordPatientCheckIn(Long branchId, LocalDate day) {
+        reportRepository.upsertIncrement(day, branchKey(branchId), 1, 0, 0, 0);
+    }
+
+    // Same as recordPatientCheckIn, for callers that only know the patient; the branch is looked up in the upsert
+    @Transactional
+    public void recordPatientVisit(Long patientId, LocalDate day) {
+        reportRepository.upsertPatientCheckIn(day, patientId);
+    }
+
+    @Transactional
+    public void recordEmployeeCheckIns(Long branchId, LocalDate day, long count) {
+        reportRepository.upsertIncrement(day, branchKey(branchId), 0, count, 0, 0);
+    }
+
+    @Transactional
+    public void recordServicesRendered(Long branchId, LocalDate day, long services, long medicineUnits) {
+        reportRepository.upsertIncrement(day, branchKey(branchId), 0, 0, services, medicineUnits);
+    }
+
+    @Transactional
+    public void recordMedicineSold(Long branchId, LocalDate day, long units) {
+        reportRepository.upsertIncrement(day, branchKey(branchId), 0, 0, 0, units);
+    }
+
+    /**
+     * Recomputes the patient, employee and service counts from the source tables. Only needed once
+     * to backfill history recorded before the rollups existed, or to repair them; normal traffic
+     * never calls this. Medicine sold (units dispensed with services plus over-the-counter sales)
+     * is only recorded here as it happens, so a rebuild keeps it as is.
+     */
+    @Transactional
+    public void rebuild() {
+        reportRepository.resetDerivedCounts();
+
+        applyCounts(reportRepository.aggregateVisitsByDayAndBranch(), 0);
+        applyCounts(reportRepository.aggregateClockInsByDayAndBranch(), 1);
+        applyCounts(reportRepository.aggregateServicesByDayAndBranch(), 2);
+
+        reportRepository.deleteEmptyRows();
+    }
+
+    // rows are (day, branchID, count); metric is 0 = patients, 1 = employees, 2 = services
+    private void applyCounts(List<Object[]> rows, int metric) {
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            long[] deltas = new long[3];
+            deltas[metric] = (Long) row[2];
+            reportRepository.upsertIncrement((LocalDate) row[0], branchKey((Long) row[1]),
+                    deltas[0], deltas[1], deltas[2], 0);
+        }
+    }
+
+    public static Long branchIdOf(Branch branch) {
+        return branch != null ? branch.getBranchID() : null;
+    }
+
+    private static long branchKey(Long branchId) {
+        return branchId != null ? branchId : NO_BRANCH;
+    }
+}
@@ -16,46 +16,19 @@ public class ReportService {
     @Autowired
     private reportRepo reportRepository;
 
-    public List<Map<String, Object>> getMonthlyCheckIns() {
-        // Fetch aggregated data for patients and employees
-        List<Object[]> patientResults = reportRepository.aggregatePatientCheckIns();
-        List<Object[]> employeeResults = reportRepository.aggregateEmployeeCheckIns();
-
-        // Map for temporary aggregation
-        Map<YearMonth, Map<String, Long>> aggregatedData = new HashMap<>();
-
-        // Process patient data
-        for (Object[] result : patientResults) {
-            int year = (int) result[0];
-            int month = (int) result[1];
-            long totalPatients = (long) result[2];
-
-            YearMonth yearMonth = YearMonth.of(year, month);
-            aggregatedData.computeIfAbsent(yearMonth, k -> new HashMap<>())
-                    .put("patientCheckIns", totalPatients);
-        }
-
-        // Process employee data
-        for (Object[] result : employeeResults) {
-            int year = (int) result[0];
-            int month = (int) result[1];
-            long totalEmployees = (long) result[2];
-
-            YearMonth yearMonth = YearMonth.of(year, month);
-            aggregatedData.computeIfAbsent(yearMonth, k -> new HashMap<>())
-                    .put("employeeCheckIns", totalEmployees);
-        }
-
-        // Convert to a list of maps for the response
+    // Reads the daily rollups kept by ReportRollupService; branchId null sums every branch
+    public List<Map<String, Object>> getMonthlyCheckIns(Long branchId) {
         List<Map<String, Object>> monthlyCheckIns = new ArrayList<>();
-        for (Map.Entry<YearMonth, Map<String, Long>> entry : aggregatedData.entrySet()) {
-            YearMonth yearMonth = entry.getKey();
-            Map<String, Long> counts = entry.getValue();
+
+        for (Object[] result : reportRepository.sumByMonth(branchId)) {
+            YearMonth yearMonth = YearMonth.of((int) result[0], (int) result[1]);
 
             Map<String, Object> reportData = new HashMap<>();
             reportData.put("yearMonth", yearMonth.toString());
-            reportData.put("patientCheckIns", counts.getOrDefault("patientCheckIns", 0L));
-            reportData.put("employeeCheckIns", counts.getOrDefault("employeeCheckIns", 0L));
+            reportData.put("patientCheckIns", result[2] != null ? (long) result[2] : 0L);
+            reportData.put("employeeCheckIns", result[3] != null ? (long) result[3] : 0L);
+            reportData.put("servicesAvailed", result[4] != null ? ((Number) result[4]).longValue() : 0L);
+            reportData.put("medicineSold", result[5] != null ? ((Number) result[5]).longValue() : 0L);
 
             monthlyCheckIns.add(reportData);
         }
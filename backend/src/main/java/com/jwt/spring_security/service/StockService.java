@@ -0,0 +1,116 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.DTO.StockLineResult;
+import com.jwt.spring_security.exception.custom.InsufficientStockException;
+import com.jwt.spring_security.model.Item;
+import com.jwt.spring_security.repo.ItemRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Deducts stock for a whole basket without read-modify-write races.
+ *
+ * Each line is a single conditional UPDATE (... WHERE stock >= quantity), so concurrent cashiers
+ * selling the same item only serialize on that row for the length of one statement and can never
+ * drive it negative. Lines are applied in itemID order so two baskets touching the same items
+ * always lock rows in the same order and cannot deadlock each other. A lock timeout or deadlock
+ * (e.g. with an unrelated writer) rolls the whole reservation back; sell() runs it again in a fresh
+ * transaction (LockRetryTemplate) and only answers 503 once the attempts are used up.
+ */
+@Service
+public class StockService {
+
+    @Autowired
+    private ItemRepo itemRepo;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private LockRetryTemplate lockRetryTemplate;
+
+    // purchaseItems sells from itemQuantity, renderService consumes itemStock
+    public enum StockColumn {
+        STOCK,
+        QUANTITY
+    }
+
+    /**
+     * Reserves every line or none of them.
+     *
+     * @param requestedById itemID -> quantity to deduct
+     * @return one OK result per line
+     * @throws InsufficientStockException if any line is short or unknown; the transaction rolls back
+     * @throws org.springframework.dao.PessimisticLockingFailureException on a lock timeout or deadlock; not
+     *         retried here, since this joins the caller's transaction (see LockRetryTemplate)
+     */
+    @Transactional
+    public List<StockLineResult> reserve(Map<Long, Long> requestedById, StockColumn column) {
+        List<StockLineResult> results = new ArrayList<>();
+        boolean failed = false;
+
+        for (Map.Entry<Long, Long> line : new TreeMap<>(requestedById).entrySet()) {
+            Long itemID = line.getKey();
+            Long quantity = line.getValue();
+
+            StockLineResult.Status status;
+            if (quantity == null || quantity < 0) {
+                throw new IllegalArgumentException("Invalid quantity for item " + itemID + ": " + quantity);
+            } else if (decrement(itemID, quantity, column) == 1) {
+                status = StockLineResult.Status.OK;
+            } else if (itemRepo.existsById(itemID)) {
+                status = StockLineResult.Status.INSUFFICIENT_STOCK;
+            } else {
+                status = StockLineResult.Status.NOT_FOUND;
+            }
+
+            failed |= status != StockLineResult.Status.OK;
+            results.add(new StockLineResult(itemID, quantity, status));
+        }
+
+        if (failed) {
+            throw new InsufficientStockException(results);
+        }
+        return results;
+    }
+
+    /**
+     * Over-the-counter sale (purchaseItems): deducts itemQuantity and adds the units to each item's
+     * branch rollup in the same transaction, so stock is never reduced without the sale being counted.
+     * The rollup cannot be rebuilt later, since these sales leave no other record. Each attempt is a
+     * new transaction, retried on lock conflicts.
+     */
+    public List<StockLineResult> sell(Map<Long, Long> requestedById) {
+        return lockRetryTemplate.execute(status -> sellOnce(requestedById));
+    }
+
+    private List<StockLineResult> sellOnce(Map<Long, Long> requestedById) {
+        List<StockLineResult> results = reserve(requestedById, StockColumn.QUANTITY);
+
+        Map<Long, Long> unitsByBranch = new HashMap<>();
+        for (Item item : itemRepo.findAllById(requestedById.keySet())) {
+            unitsByBranch.merge(item.getBranch() != null ? item.getBranch().getBranchID() : ReportRollupService.NO_BRANCH,
+                    requestedById.get(item.getItemID()), Long::sum);
+        }
+        LocalDate today = LocalDate.now();
+        for (Map.Entry<Long, Long> branchUnits : unitsByBranch.entrySet()) {
+            reportRollupService.recordMedicineSold(branchUnits.getKey(), today, branchUnits.getValue());
+        }
+        return results;
+    }
+
+    // No retry per statement: a lock failure dooms the surrounding transaction, so the whole unit is rerun
+    private int decrement(Long itemID, Long quantity, StockColumn column) {
+        return column == StockColumn.STOCK
+                ? itemRepo.decrementStock(itemID, quantity)
+                : itemRepo.decrementQuantity(itemID, quantity);
+    }
+}
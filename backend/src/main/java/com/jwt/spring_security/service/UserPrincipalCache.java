@@ -0,0 +1,50 @@
+package com.jwt.spring_security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Keeps recently authenticated principals in memory so JwtFilter does not query the
+ * Users/Owner/Employee tables on every request. Anything that changes or removes a user
+ * must call {@link #evict(String)}; the TTL only bounds staleness for writes made elsewhere.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public UserPrincipalCache(@Value("${auth.principal-cache.max-size:5000}") long maxSize,
+                              @Value("${auth.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.principals");
+    }
+
+    // Lookups that throw (e.g. UsernameNotFoundException) are not cached
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+}
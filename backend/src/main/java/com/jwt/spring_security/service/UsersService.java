@@ -11,6 +11,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +26,12 @@ public class UsersService {
     @Autowired
     private JWTService jwtService;
 
+    @Autowired
+    private MyUserDetailsService userDetailsService;
+
+    @Autowired
+    private LoginHashingExecutor loginHashingExecutor;
+
     private BCryptPasswordEncoder passwordEncoder; // Injected BCryptPasswordEncoder
 
     // get all users
@@ -53,6 +60,11 @@ public class UsersService {
         return userRepo.save(user);
     }
 
+    // Same as verify, but BCrypt runs on the login hashing pool instead of the request thread
+    public CompletableFuture<String> verifyAsync(Users user) {
+        return loginHashingExecutor.submit(() -> verify(user));
+    }
+
     public String verify(Users user) {
         Authentication authentication = authManager.authenticate(
                 new UsernamePasswordAuthenticationToken(user.getUsername(), user.getPassword())
@@ -92,7 +104,12 @@ public class UsersService {
                 existingUser.setPassword(encryptedPassword);
             }
 
-            return userRepo.save(existingUser);
+            Users saved = userRepo.save(existingUser);
+            // Only after the commit, so a concurrent login cannot re-cache the old principal;
+            // dropped under both the old and the new name
+            userDetailsService.evict(username);
+            userDetailsService.evict(userDetails.getUsername());
+            return saved;
         }
         return null;
     }
@@ -101,6 +118,7 @@ public class UsersService {
         Users existingUser = userRepo.findByUsername(username);
         if (existingUser != null) {
             userRepo.delete(existingUser);
+            userDetailsService.evict(username);
             return true;
         }
         return false;
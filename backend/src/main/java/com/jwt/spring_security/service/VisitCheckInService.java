@@ -0,0 +1,118 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.repo.VisitRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs patient check-ins, at most one per patient per day.
+ *
+ * The database enforces the rule with a unique key on (patient, day), so a check-in is a single
+ * conditional insert. Patients already seen today (after their insert committed) are also kept in memory, so a repeated scan at
+ * the front desk is answered without touching the database. The set only ever short-circuits
+ * "already logged"; the unique key stays the source of truth.
+ */
+@Service
+public class VisitCheckInService {
+
+    public enum Result { LOGGED, ALREADY_LOGGED, PATIENT_NOT_FOUND }
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private PatientService patientService;
+
+    @Autowired
+    private ReportRollupService reportRollupService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Set<Long> checkedInToday = ConcurrentHashMap.newKeySet();
+    private volatile LocalDate today = LocalDate.now();
+
+    // Not transactional itself: the in-memory check must not take a connection, and a patient is added
+    // to the set only after the insert has committed
+    public Result checkIn(Long patientId, String purpose) {
+        LocalDate day = currentDay();
+        if (checkedInToday.contains(patientId)) {
+            return Result.ALREADY_LOGGED;
+        }
+
+        boolean logged;
+        try {
+            logged = new TransactionTemplate(transactionManager).execute(status -> {
+                if (visitRepository.insertIfAbsent(patientId, purpose, new Date(), day) != 1) {
+                    return false;
+                }
+                reportRollupService.recordPatientVisit(patientId, day);
+                return true;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent check-in of the same patient; anything else is a real error
+            if (!visitRepository.existsForDay(patientId, day)) {
+                throw e;
+            }
+            logged = false;
+        }
+
+        if (logged) {
+            checkedInToday.add(patientId);
+            return Result.LOGGED;
+        }
+
+        // Nothing inserted: either a visit exists for today or the patient does not (rare, so one more query)
+        if (patientService.existsById(patientId)) {
+            checkedInToday.add(patientId);
+            return Result.ALREADY_LOGGED;
+        }
+        return Result.PATIENT_NOT_FOUND;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        Integer backfilled = new TransactionTemplate(transactionManager).execute(status -> visitRepository.backfillVisitDays());
+        if (backfilled != null && backfilled > 0) {
+            System.out.println("Backfilled visit_day for " + backfilled + " visits");
+        }
+        rollover(LocalDate.now());
+    }
+
+    @Scheduled(cron = "0 0 0 * * *")
+    public void rolloverAtMidnight() {
+        rollover(LocalDate.now());
+    }
+
+    // Also rolls over on the first check-in of a new day, in case the scheduled run is late
+    private LocalDate currentDay() {
+        LocalDate now = LocalDate.now();
+        if (!now.equals(today)) {
+            rolloverIfStale(now);
+        }
+        return now;
+    }
+
+    private synchronized void rolloverIfStale(LocalDate day) {
+        if (!day.equals(today)) {
+            rollover(day);
+        }
+    }
+
+    private synchronized void rollover(LocalDate day) {
+        checkedInToday.clear();
+        checkedInToday.addAll(visitRepository.findPatientIdsByVisitDay(day));
+        today = day;
+    }
+}
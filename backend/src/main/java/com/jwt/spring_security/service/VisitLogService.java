@@ -0,0 +1,83 @@
+package com.jwt.spring_security.service;
+
+import com.jwt.spring_security.DTO.KeysetPageDTO;
+import com.jwt.spring_security.DTO.VisitLogDTO;
+import com.jwt.spring_security.DTO.VisitSummaryDTO;
+import com.jwt.spring_security.repo.VisitRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtered visit log for owner dashboards. Pages are keyset-paginated on (visit time, id), newest
+ * first, and aggregates are computed in the database, so neither depends on how large the log grows.
+ */
+@Service
+public class VisitLogService {
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    /**
+     * @param before nextCursor of the previous page ("visitInstant_id"), or null for the newest visits
+     * @param from   inclusive, or null
+     * @param to     exclusive, or null
+     */
+    public KeysetPageDTO<VisitLogDTO> listVisits(String before, int size, LocalDate from, LocalDate to, Long branchId,
+                                                 String purpose, Long patientId, boolean includeTotal) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Date fromDate = toDate(from);
+        Date toDate = toDate(to);
+        Date beforeDate = null;
+        Long beforeId = null;
+        if (before != null) {
+            int separator = before.lastIndexOf('_');
+            try {
+                // Timestamp keeps sub-millisecond digits, so the bound matches the row it came from exactly
+                beforeDate = Timestamp.from(Instant.parse(before.substring(0, Math.max(separator, 0))));
+                beforeId = Long.parseLong(before.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + before);
+            }
+        }
+
+        List<VisitLogDTO> fetched = visitRepository.findLogBefore(beforeDate, beforeId, fromDate, toDate, branchId,
+                purpose, patientId, PageRequest.of(0, pageSize + 1));
+        Long total = includeTotal ? visitRepository.countLog(fromDate, toDate, branchId, purpose, patientId) : null;
+
+        return KeysetPageDTO.of(fetched, pageSize, visit -> visit.getVisitDate().toInstant() + "_" + visit.getId(), total);
+    }
+
+    public VisitSummaryDTO summarize(LocalDate from, LocalDate to, Long branchId, String purpose, Long patientId) {
+        Date fromDate = toDate(from);
+        Date toDate = toDate(to);
+
+        long total = 0;
+        Map<LocalDate, Long> perDay = new LinkedHashMap<>();
+        for (Object[] row : visitRepository.countLogPerDay(fromDate, toDate, branchId, purpose, patientId)) {
+            perDay.put((LocalDate) row[0], (Long) row[1]);
+            total += (Long) row[1];
+        }
+
+        Map<String, Long> perPurpose = new LinkedHashMap<>();
+        for (Object[] row : visitRepository.countLogPerPurpose(fromDate, toDate, branchId, purpose, patientId)) {
+            perPurpose.put((String) row[0], (Long) row[1]);
+        }
+
+        return new VisitSummaryDTO(total, perDay, perPurpose);
+    }
+
+    private static Date toDate(LocalDate day) {
+        return day != null ? Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant()) : null;
+    }
+}
@@ -3,4 +3,6 @@ package com.jwt.spring_security.util;
 public class Constants {
     public static final int BCRYPT_STRENGTH = 10;
     public static final String SECRET_KEY = "software_engineering_clinic";
+    // Fetch-size hint (Integer.MIN_VALUE) that makes MySQL Connector/J stream a result set row by row
+    public static final String MYSQL_STREAMING_FETCH_SIZE = "-2147483648";
 }
@@ -3,34 +3,28 @@ package com.jwt.spring_security.util;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
-import java.util.Hashtable;
+import java.util.EnumMap;
+import java.util.Map;
 
 public class QRCodeGenerator {
 
+    public static final int DEFAULT_SIZE = 300;
+
     public static BufferedImage generateQRCodeImage(String barcodeText) throws Exception {
-        int width = 300;
-        int height = 300;
-        String imageFormat = "PNG";
+        BitMatrix bitMatrix = generateQRCodeMatrix(barcodeText, DEFAULT_SIZE, ErrorCorrectionLevel.L);
+        return MatrixToImageWriter.toBufferedImage(bitMatrix);
+    }
 
-        Hashtable<EncodeHintType, ErrorCorrectionLevel> hintMap = new Hashtable<>();
-        hintMap.put(EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.L);
+    public static BitMatrix generateQRCodeMatrix(String barcodeText, int size, ErrorCorrectionLevel errorCorrection) throws Exception {
+        Map<EncodeHintType, Object> hintMap = new EnumMap<>(EncodeHintType.class);
+        hintMap.put(EncodeHintType.ERROR_CORRECTION, errorCorrection);
 
         MultiFormatWriter qrCodeWriter = new MultiFormatWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(barcodeText, BarcodeFormat.QR_CODE, width, height, hintMap);
-
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        image.createGraphics();
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                image.setRGB(x, y, bitMatrix.get(x, y) ? Color.BLACK.getRGB() : Color.WHITE.getRGB());
-            }
-        }
-        return image;
+        return qrCodeWriter.encode(barcodeText, BarcodeFormat.QR_CODE, size, size, hintMap);
     }
 }
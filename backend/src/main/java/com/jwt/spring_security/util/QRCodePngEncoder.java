@@ -0,0 +1,189 @@
+package com.jwt.spring_security.util;
+
+import com.google.zxing.common.BitMatrix;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes 1-bit grayscale PNGs without going through BufferedImage and ImageIO.
+ * A 300x300 QR code is ~11 KB of raw scanlines that deflate to a few hundred bytes.
+ */
+public final class QRCodePngEncoder {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IDAT_CHUNK_SIZE = 32 * 1024;
+
+    private QRCodePngEncoder() {
+    }
+
+    public static byte[] encode(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        int rowBytes = rowBytes(width);
+
+        // 8 pixels per byte, MSB first, 1 = white
+        byte[] rows = new byte[height * rowBytes];
+        for (int y = 0; y < height; y++) {
+            int offset = y * rowBytes;
+            for (int x = 0; x < width; x++) {
+                if (!matrix.get(x, y)) {
+                    rows[offset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+                }
+            }
+        }
+
+        try {
+            ByteArrayOutputStream png = new ByteArrayOutputStream(1024);
+            try (StreamingWriter writer = new StreamingWriter(png, width, height)) {
+                writer.writeRows(rows, 0, height, rowBytes);
+                writer.finish();
+            }
+            return png.toByteArray();
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static int rowBytes(int width) {
+        return (width + 7) / 8;
+    }
+
+    /**
+     * Writes a 1-bit PNG to a stream a band of rows at a time, so images far larger than
+     * memory (e.g. a sheet of thousands of badges) can be produced. Only the current band and a
+     * 32 KB compressed buffer are held.
+     */
+    public static final class StreamingWriter implements Closeable {
+        private final OutputStream out;
+        private final int width;
+        private final int height;
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final DeflaterOutputStream idat;
+        private int rowsWritten;
+        private boolean finished;
+
+        public StreamingWriter(OutputStream out, int width, int height) throws IOException {
+            this.out = out;
+            this.width = width;
+            this.height = height;
+
+            out.write(PNG_SIGNATURE);
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+            DataOutputStream headerData = new DataOutputStream(header);
+            headerData.writeInt(width);
+            headerData.writeInt(height);
+            headerData.writeByte(1); // bit depth
+            headerData.writeByte(0); // color type: grayscale
+            headerData.writeByte(0); // compression: deflate
+            headerData.writeByte(0); // filter method
+            headerData.writeByte(0); // no interlace
+            writeChunk(out, "IHDR", header.toByteArray());
+
+            this.idat = new DeflaterOutputStream(new IdatOutputStream(out), deflater, IDAT_CHUNK_SIZE);
+        }
+
+        /**
+         * @param rows   packed 1-bit rows, MSB first, 1 = white (the layout of a TYPE_BYTE_BINARY raster)
+         * @param stride bytes from the start of one row to the next in {@code rows}
+         */
+        public void writeRows(byte[] rows, int offset, int rowCount, int stride) throws IOException {
+            if (rowsWritten + rowCount > height) {
+                throw new IllegalStateException("PNG is " + height + " rows high");
+            }
+            int rowBytes = rowBytes(width);
+            for (int row = 0; row < rowCount; row++) {
+                idat.write(0); // filter type: none
+                idat.write(rows, offset + row * stride, rowBytes);
+            }
+            rowsWritten += rowCount;
+        }
+
+        /**
+         * Completes the image: flushes the compressed rows and writes the trailer. Must be called once
+         * every row has been written; {@link #close()} alone leaves a truncated PNG.
+         */
+        public void finish() throws IOException {
+            if (rowsWritten != height) {
+                throw new IllegalStateException("Wrote " + rowsWritten + " of " + height + " rows");
+            }
+            try {
+                idat.close();
+            } finally {
+                deflater.end();
+            }
+            writeChunk(out, "IEND", new byte[0]);
+            out.flush();
+            finished = true;
+        }
+
+        // Only releases the deflater, so it is safe in try-with-resources while another exception is propagating
+        @Override
+        public void close() {
+            if (!finished) {
+                deflater.end();
+            }
+        }
+    }
+
+    // Buffers compressed bytes and emits them as IDAT chunks; close() flushes but never closes the target
+    private static final class IdatOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(IDAT_CHUNK_SIZE);
+
+        IdatOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            if (buffer.size() >= IDAT_CHUNK_SIZE) {
+                emit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            buffer.write(b, off, len);
+            if (buffer.size() >= IDAT_CHUNK_SIZE) {
+                emit();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (buffer.size() > 0) {
+                emit();
+            }
+        }
+
+        private void emit() throws IOException {
+            writeChunk(out, "IDAT", buffer.toByteArray());
+            buffer.reset();
+        }
+    }
+
+    private static void writeChunk(OutputStream target, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+        out.flush();
+    }
+}
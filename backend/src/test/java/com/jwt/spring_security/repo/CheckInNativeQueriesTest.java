@@ -0,0 +1,138 @@
+package com.jwt.spring_security.repo;
+
+import com.jwt.spring_security.model.Branch;
+import com.jwt.spring_security.model.Patient;
+import com.jwt.spring_security.model.Report;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The check-in statements are native MySQL, so they run against the schema Hibernate generates on a real server
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class CheckInNativeQueriesTest {
+
+	@Container
+	@ServiceConnection
+	static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+	private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private VisitRepository visitRepository;
+
+	@Autowired
+	private reportRepo reportRepository;
+
+	@Autowired
+	private branchRepo branchRepository;
+
+	@Autowired
+	private PatientRepo patientRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Patient patient(Branch branch) {
+		Patient patient = new Patient();
+		patient.setLastName("Cruz");
+		patient.setGivenName("Ana");
+		patient.setBranch(branch);
+		return entityManager.persistAndFlush(patient);
+	}
+
+	private Branch branch() {
+		Branch branch = new Branch();
+		branch.setBranchName("Main");
+		return entityManager.persistAndFlush(branch);
+	}
+
+	@Test
+	void insertIfAbsentLogsOneVisitPerPatientPerDay() {
+		Patient patient = patient(branch());
+		Date at = new Date();
+
+		assertEquals(1, visitRepository.insertIfAbsent(patient.getClientID(), "Checkup", at, DAY));
+		assertEquals(0, visitRepository.insertIfAbsent(patient.getClientID(), "Checkup", at, DAY));
+		assertEquals(1, visitRepository.insertIfAbsent(patient.getClientID(), "Checkup", at, DAY.plusDays(1)));
+		assertEquals(0, visitRepository.insertIfAbsent(patient.getClientID() + 1000, "Checkup", at, DAY));
+
+		assertEquals(List.of(patient.getClientID()), visitRepository.findPatientIdsByVisitDay(DAY));
+	}
+
+	@Test
+	void upsertPatientCheckInCountsPerPatientBranch() {
+		Branch branch = branch();
+		Patient withBranch = patient(branch);
+		Patient withoutBranch = patient(null);
+
+		reportRepository.upsertPatientCheckIn(DAY, withBranch.getClientID());
+		reportRepository.upsertPatientCheckIn(DAY, withBranch.getClientID());
+		reportRepository.upsertPatientCheckIn(DAY, withoutBranch.getClientID());
+		reportRepository.upsertPatientCheckIn(DAY, withoutBranch.getClientID() + 1000);
+		entityManager.clear();
+
+		List<Report> rows = reportRepository.findAll();
+		rows.removeIf(row -> !DAY.equals(row.getDate()));
+		rows.sort(Comparator.comparingLong(Report::getBranchId));
+		assertEquals(2, rows.size());
+		assertEquals(0, rows.get(0).getBranchId());
+		assertEquals(1, rows.get(0).getPatientCheckIns());
+		assertEquals((long) branch.getBranchID(), rows.get(1).getBranchId());
+		assertEquals(2, rows.get(1).getPatientCheckIns());
+		assertEquals(DAY, rows.get(1).getDate());
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void nativeWritesLeaveReferenceDataCached() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		Branch branch = new Branch();
+		branch.setBranchName("Cached");
+		Long branchId = tx.execute(status -> branchRepository.save(branch).getBranchID());
+		Patient patient = new Patient();
+		patient.setLastName("Reyes");
+		Long patientId = tx.execute(status -> patientRepository.save(patient).getClientID());
+
+		// A load outside the saving session puts the branch in its second-level cache region
+		tx.executeWithoutResult(status -> branchRepository.findById(branchId));
+		Cache cache = entityManagerFactory.getCache();
+		assertTrue(cache.contains(Branch.class, branchId));
+
+		// Each native write declares its table, so Hibernate must not evict the branch region
+		LocalDate day = DAY.minusYears(1);
+		tx.executeWithoutResult(status -> visitRepository.insertIfAbsent(patientId, "Checkup", new Date(), day));
+		tx.executeWithoutResult(status -> visitRepository.backfillVisitDays());
+		tx.executeWithoutResult(status -> reportRepository.upsertPatientCheckIn(day, patientId));
+		tx.executeWithoutResult(status -> reportRepository.upsertIncrement(day, branchId, 0, 1, 0, 0));
+
+		assertTrue(cache.contains(Branch.class, branchId));
+	}
+}
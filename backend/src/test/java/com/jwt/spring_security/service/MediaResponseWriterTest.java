@@ -0,0 +1,215 @@
+package com.jwt.spring_security.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MediaResponseWriterTest {
+
+	private static final String BODY = "0123456789";
+	private static final String ETAG = "\"abc123\"";
+	// Whole seconds, since HTTP dates have no sub-second part
+	private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+	@TempDir
+	Path dir;
+
+	private final MediaResponseWriter writer = new MediaResponseWriter();
+	private Path file;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		file = dir.resolve("photo.png");
+		Files.write(file, BODY.getBytes(StandardCharsets.US_ASCII));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(LAST_MODIFIED));
+	}
+
+	private MockHttpServletResponse get(MockHttpServletRequest request) throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		writer.write(request, response, file, ETAG, CacheControl.noCache());
+		return response;
+	}
+
+	private static MockHttpServletRequest request(String range) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/images/store/abc123");
+		if (range != null) {
+			request.addHeader(HttpHeaders.RANGE, range);
+		}
+		return request;
+	}
+
+	@Test
+	void servesWholeFileWithValidators() throws IOException {
+		MockHttpServletResponse response = get(request(null));
+
+		assertEquals(200, response.getStatus());
+		assertEquals(BODY, response.getContentAsString());
+		assertEquals(10, response.getContentLengthLong());
+		assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertEquals(LAST_MODIFIED, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+		assertEquals("image/png", response.getContentType());
+	}
+
+	@Test
+	void headWritesNoBody() throws IOException {
+		MockHttpServletRequest request = request(null);
+		request.setMethod("HEAD");
+		MockHttpServletResponse response = get(request);
+
+		assertEquals(200, response.getStatus());
+		assertEquals(10, response.getContentLengthLong());
+		assertEquals("", response.getContentAsString());
+	}
+
+	@Test
+	void ifNoneMatchAnswersNotModified() throws IOException {
+		for (String ifNoneMatch : new String[]{ETAG, "W/" + ETAG, "\"other\", " + ETAG, "*"}) {
+			MockHttpServletRequest request = request(null);
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+			MockHttpServletResponse response = get(request);
+
+			assertEquals(304, response.getStatus(), ifNoneMatch);
+			assertEquals("", response.getContentAsString());
+			assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+		}
+	}
+
+	@Test
+	void ifNoneMatchTakesPrecedenceOverIfModifiedSince() throws IOException {
+		MockHttpServletRequest request = request(null);
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+		request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+
+		assertEquals(200, get(request).getStatus());
+	}
+
+	@Test
+	void ifModifiedSinceComparesAgainstLastModified() throws IOException {
+		MockHttpServletRequest current = request(null);
+		current.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+		assertEquals(304, get(current).getStatus());
+
+		MockHttpServletRequest stale = request(null);
+		stale.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED - 1000);
+		MockHttpServletResponse response = get(stale);
+		assertEquals(200, response.getStatus());
+		assertEquals(BODY, response.getContentAsString());
+	}
+
+	@Test
+	void closedRange() throws IOException {
+		MockHttpServletResponse response = get(request("bytes=2-5"));
+
+		assertEquals(206, response.getStatus());
+		assertEquals("2345", response.getContentAsString());
+		assertEquals(4, response.getContentLengthLong());
+		assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void openEndedRange() throws IOException {
+		MockHttpServletResponse response = get(request("bytes=7-"));
+
+		assertEquals(206, response.getStatus());
+		assertEquals("789", response.getContentAsString());
+		assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void rangeEndIsClampedToFile() throws IOException {
+		MockHttpServletResponse response = get(request("bytes=8-100"));
+
+		assertEquals(206, response.getStatus());
+		assertEquals("89", response.getContentAsString());
+		assertEquals("bytes 8-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void suffixRange() throws IOException {
+		MockHttpServletResponse response = get(request("bytes=-3"));
+
+		assertEquals(206, response.getStatus());
+		assertEquals("789", response.getContentAsString());
+		assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void suffixLongerThanFileServesEverything() throws IOException {
+		MockHttpServletResponse response = get(request("bytes=-50"));
+
+		assertEquals(206, response.getStatus());
+		assertEquals(BODY, response.getContentAsString());
+		assertEquals("bytes 0-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void unsatisfiableRanges() throws IOException {
+		for (String range : new String[]{"bytes=10-12", "bytes=10-", "bytes=-0"}) {
+			MockHttpServletResponse response = get(request(range));
+
+			assertEquals(416, response.getStatus(), range);
+			assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+			assertEquals("", response.getContentAsString(), range);
+		}
+	}
+
+	@Test
+	void multipleOrMalformedRangesServeWholeFile() throws IOException {
+		for (String range : new String[]{"bytes=0-1,4-5", "bytes=abc", "bytes=5-2", "bytes=3", "items=0-1"}) {
+			MockHttpServletResponse response = get(request(range));
+
+			assertEquals(200, response.getStatus(), range);
+			assertEquals(BODY, response.getContentAsString(), range);
+			assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+		}
+	}
+
+	@Test
+	void ifRangeWithCurrentEtagServesRange() throws IOException {
+		MockHttpServletRequest request = request("bytes=0-1");
+		request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+		MockHttpServletResponse response = get(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals("01", response.getContentAsString());
+	}
+
+	@Test
+	void ifRangeWithOtherOrWeakEtagServesWholeFile() throws IOException {
+		for (String ifRange : new String[]{"\"other\"", "W/" + ETAG}) {
+			MockHttpServletRequest request = request("bytes=0-1");
+			request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+			MockHttpServletResponse response = get(request);
+
+			assertEquals(200, response.getStatus(), ifRange);
+			assertEquals(BODY, response.getContentAsString(), ifRange);
+		}
+	}
+
+	@Test
+	void ifRangeWithDateComparesAgainstLastModified() throws IOException {
+		MockHttpServletRequest current = request("bytes=0-1");
+		current.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED);
+		assertEquals(206, get(current).getStatus());
+
+		MockHttpServletRequest stale = request("bytes=0-1");
+		stale.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED - 1000);
+		MockHttpServletResponse response = get(stale);
+		assertEquals(200, response.getStatus());
+		assertEquals(BODY, response.getContentAsString());
+	}
+}
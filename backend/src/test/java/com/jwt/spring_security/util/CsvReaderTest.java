@@ -0,0 +1,88 @@
+package com.jwt.spring_security.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+	private static CsvReader reader(String csv) {
+		return new CsvReader(new StringReader(csv));
+	}
+
+	@Test
+	void readsRecordsUntilEndOfInput() throws IOException {
+		CsvReader csv = reader("lastName,givenName\nDela Cruz,Juan\n");
+
+		assertEquals(List.of("lastName", "givenName"), csv.next());
+		assertEquals(List.of("Dela Cruz", "Juan"), csv.next());
+		assertNull(csv.next());
+	}
+
+	@Test
+	void lastRecordWithoutLineBreak() throws IOException {
+		CsvReader csv = reader("a,b");
+
+		assertEquals(List.of("a", "b"), csv.next());
+		assertNull(csv.next());
+	}
+
+	@Test
+	void keepsEmptyFields() throws IOException {
+		CsvReader csv = reader(",,\na,,c\n");
+
+		assertEquals(List.of("", "", ""), csv.next());
+		assertEquals(List.of("a", "", "c"), csv.next());
+	}
+
+	@Test
+	void quotedFieldsMayContainCommasAndDoubledQuotes() throws IOException {
+		CsvReader csv = reader("\"Santos, Maria\",\"say \"\"hi\"\"\",\"\"\n");
+
+		assertEquals(List.of("Santos, Maria", "say \"hi\"", ""), csv.next());
+	}
+
+	@Test
+	void quotedFieldsMayContainLineBreaks() throws IOException {
+		CsvReader csv = reader("\"line 1\nline 2\",x\nnext,y\n");
+
+		assertEquals(List.of("line 1\nline 2", "x"), csv.next());
+		// The embedded break counts, so the next record starts on line 3
+		assertEquals(3, csv.getLine());
+		assertEquals(List.of("next", "y"), csv.next());
+		assertNull(csv.next());
+	}
+
+	@Test
+	void acceptsCrlfAndBareCrLineEndings() throws IOException {
+		CsvReader csv = reader("a,b\r\nc,d\re,f\r\n");
+
+		assertEquals(List.of("a", "b"), csv.next());
+		assertEquals(List.of("c", "d"), csv.next());
+		assertEquals(List.of("e", "f"), csv.next());
+		assertNull(csv.next());
+		assertEquals(4, csv.getLine());
+	}
+
+	@Test
+	void crlfInsideQuotesIsKeptVerbatim() throws IOException {
+		CsvReader csv = reader("\"a\r\nb\",c\r\n");
+
+		assertEquals(List.of("a\r\nb", "c"), csv.next());
+		assertNull(csv.next());
+	}
+
+	@Test
+	void unterminatedQuoteFails() {
+		CsvReader csv = reader("ok,\"never closed\nstill open");
+
+		IOException e = assertThrows(IOException.class, csv::next);
+		assertEquals("Unterminated quoted field at line 2", e.getMessage());
+	}
+}
@@ -0,0 +1,102 @@
+package com.jwt.spring_security.util;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QRCodePngEncoderTest {
+
+	private static BufferedImage read(byte[] png) throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(png));
+	}
+
+	private static String decode(BufferedImage image) throws NotFoundException {
+		return new MultiFormatReader()
+				.decode(new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image))))
+				.getText();
+	}
+
+	@Test
+	void generatedPngDecodesBackToTheText() throws Exception {
+		BitMatrix matrix = QRCodeGenerator.generateQRCodeMatrix("12345", QRCodeGenerator.DEFAULT_SIZE, ErrorCorrectionLevel.L);
+
+		BufferedImage image = read(QRCodePngEncoder.encode(matrix));
+
+		assertEquals(QRCodeGenerator.DEFAULT_SIZE, image.getWidth());
+		assertEquals(QRCodeGenerator.DEFAULT_SIZE, image.getHeight());
+		assertEquals("12345", decode(image));
+	}
+
+	@Test
+	void pixelsMatchTheMatrix() throws Exception {
+		// A width that is not a multiple of 8 exercises the padding bits at the end of each row
+		BitMatrix matrix = QRCodeGenerator.generateQRCodeMatrix("patient-42", 101, ErrorCorrectionLevel.M);
+
+		BufferedImage image = read(QRCodePngEncoder.encode(matrix));
+
+		for (int y = 0; y < matrix.getHeight(); y++) {
+			for (int x = 0; x < matrix.getWidth(); x++) {
+				int rgb = image.getRGB(x, y) & 0xFFFFFF;
+				assertEquals(matrix.get(x, y) ? 0x000000 : 0xFFFFFF, rgb, "pixel " + x + "," + y);
+			}
+		}
+		assertEquals("patient-42", decode(image));
+	}
+
+	@Test
+	void streamingWriterAcceptsRowsInBands() throws Exception {
+		int width = 16;
+		int height = 5;
+		int stride = QRCodePngEncoder.rowBytes(width);
+		byte[] rows = new byte[height * stride];
+		for (int y = 0; y < height; y++) {
+			// Row y: first byte black, second byte white
+			rows[y * stride + 1] = (byte) 0xFF;
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (QRCodePngEncoder.StreamingWriter writer = new QRCodePngEncoder.StreamingWriter(out, width, height)) {
+			writer.writeRows(rows, 0, 2, stride);
+			writer.writeRows(rows, 2 * stride, 3, stride);
+			writer.finish();
+		}
+
+		BufferedImage image = read(out.toByteArray());
+		assertEquals(width, image.getWidth());
+		assertEquals(height, image.getHeight());
+		for (int y = 0; y < height; y++) {
+			assertEquals(0x000000, image.getRGB(7, y) & 0xFFFFFF);
+			assertEquals(0xFFFFFF, image.getRGB(8, y) & 0xFFFFFF);
+		}
+	}
+
+	@Test
+	void streamingWriterRejectsWrongRowCounts() throws IOException {
+		byte[] row = new byte[1];
+
+		QRCodePngEncoder.StreamingWriter tooMany = new QRCodePngEncoder.StreamingWriter(new ByteArrayOutputStream(), 8, 1);
+		tooMany.writeRows(row, 0, 1, 1);
+		assertThrows(IllegalStateException.class, () -> tooMany.writeRows(row, 0, 1, 1));
+
+		QRCodePngEncoder.StreamingWriter tooFew = new QRCodePngEncoder.StreamingWriter(new ByteArrayOutputStream(), 8, 2);
+		tooFew.writeRows(row, 0, 1, 1);
+		assertThrows(IllegalStateException.class, tooFew::finish);
+		// close() only releases resources, so it never masks the exception that cut the image short
+		assertDoesNotThrow(tooFew::close);
+	}
+}